@@ -0,0 +1,32 @@
+package org.springframework.samples.petclinic.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Writes the owner, pet and visit responses as CBOR (<code>application/cbor</code>) or Smile
+ * (<code>application/x-jackson-smile</code>) to the clients asking for them in their <code>Accept</code> header, so
+ * that they do not parse large collections from JSON text.
+ * <p>
+ * Both formats encode the same DTOs as the JSON responses, with the object mapper settings of the application rather
+ * than the defaults Spring MVC would use for them, so that dates and field selection are handled as for JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+}
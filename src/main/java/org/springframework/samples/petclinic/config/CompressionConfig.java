@@ -0,0 +1,50 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.CompressedResponseCacheFilter;
+import org.springframework.samples.petclinic.util.CompressedResponseCacheFilter.CompressedResponse;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Caches the compressed responses of the <code>petclinic.http.compression.cached-paths</code>, see
+ * {@link CompressedResponseCacheFilter}. The other responses are compressed by the server, according to
+ * <code>server.compression.*</code>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.http.compression.cache.enable", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    @Bean
+    FilterRegistrationBean<CompressedResponseCacheFilter> compressedResponseCacheFilter(
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${petclinic.http.compression.cached-paths:/api/pettypes,/api/specialties,/api/vets}") List<String> paths,
+        @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize,
+        @Value("${petclinic.http.compression.cache.maximum-size:100}") long maximumSize,
+        @Value("${petclinic.http.compression.cache.time-to-live:1m}") Duration timeToLive) {
+        Cache<String, CompressedResponse> cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "compressed-responses"));
+        FilterRegistrationBean<CompressedResponseCacheFilter> registration = new FilterRegistrationBean<>(
+            new CompressedResponseCacheFilter(paths, minResponseSize.toBytes(), cache));
+        // behind Spring Security, so that the entries are keyed by the authorities of the authenticated caller
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
+        return registration;
+    }
+
+}
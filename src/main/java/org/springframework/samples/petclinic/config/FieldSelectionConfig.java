@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.rest.controller.FieldSelection;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.VetDto;
+
+/**
+ * Annotates the DTOs whose fields can be selected with the {@link FieldSelection#FILTER} filter, which serializes all
+ * their fields unless the request selects some of them.
+ *
+ * @see org.springframework.samples.petclinic.rest.advice.FieldSelectionAdvice
+ */
+@Configuration
+public class FieldSelectionConfig {
+
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder
+            .mixIn(OwnerDto.class, SelectableFields.class)
+            .mixIn(PetDto.class, SelectableFields.class)
+            .mixIn(VetDto.class, SelectableFields.class)
+            .filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    @JsonFilter(FieldSelection.FILTER)
+    interface SelectableFields {
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.util.FlightRecorderAspect;
+
+/**
+ * Emits JDK Flight Recorder events for <code>ClinicService</code> and repository calls when
+ * <code>petclinic.jfr.enable</code> is set. Without it no aspect is registered and the calls are not proxied for it.
+ *
+ * @see FlightRecorderAspect
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.jfr.enable", havingValue = "true")
+public class FlightRecorderConfig {
+
+    @Bean
+    FlightRecorderAspect flightRecorderAspect() {
+        return new FlightRecorderAspect();
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+
+/**
+ * <code>NamedParameterJdbcTemplate</code>s shared by the JDBC repositories, so that the SQL parsed for named parameters
+ * is cached once per application rather than once per repository.
+ * <p>
+ * Two query classes are told apart by their fetch size:
+ * <ul>
+ * <li>lookups (by id, by name, child rows of one entity) use the primary template, built on the auto-configured
+ * <code>JdbcTemplate</code> and its <code>spring.jdbc.template.fetch-size</code>; the driver default returns their
+ * few rows in one round trip</li>
+ * <li>scans (<code>findAll</code>) use the {@link #SCAN_TEMPLATE}, fetching <code>petclinic.jdbc.scan-fetch-size</code>
+ * rows per round trip</li>
+ * </ul>
+ * The scan template parses its SQL through the primary one, so both share a single cache of
+ * <code>petclinic.jdbc.sql-cache-limit</code> entries.
+ */
+@Configuration
+@Profile("jdbc")
+public class JdbcConfig {
+
+    public static final String SCAN_TEMPLATE = "scanJdbcTemplate";
+
+    @Value("${petclinic.jdbc.sql-cache-limit:256}")
+    private int sqlCacheLimit;
+
+    @Bean
+    @Primary
+    SharedSqlCacheTemplate namedParameterJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        SharedSqlCacheTemplate template = new SharedSqlCacheTemplate(jdbcTemplate, null);
+        template.setCacheLimit(this.sqlCacheLimit);
+        return template;
+    }
+
+    @Bean(SCAN_TEMPLATE)
+    NamedParameterJdbcTemplate scanJdbcTemplate(DataSource dataSource, SharedSqlCacheTemplate namedParameterJdbcTemplate,
+                                                @Value("${petclinic.jdbc.scan-fetch-size:500}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        return new SharedSqlCacheTemplate(jdbcTemplate, namedParameterJdbcTemplate);
+    }
+
+    /**
+     * Template parsing its SQL through another one, if given, rather than through a cache of its own.
+     */
+    static class SharedSqlCacheTemplate extends NamedParameterJdbcTemplate {
+
+        private final SharedSqlCacheTemplate parser;
+
+        SharedSqlCacheTemplate(JdbcTemplate jdbcTemplate, SharedSqlCacheTemplate parser) {
+            super(jdbcTemplate);
+            this.parser = parser;
+        }
+
+        @Override
+        protected ParsedSql getParsedSql(String sql) {
+            return this.parser != null ? this.parser.getParsedSql(sql) : super.getParsedSql(sql);
+        }
+
+    }
+
+}
@@ -0,0 +1,23 @@
+package org.springframework.samples.petclinic.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the Blackbird module with the object mappers of the application, the JSON one and those of
+ * {@link BinaryFormatsConfig}: the properties of the DTOs are then read and written through lambdas generated once per
+ * property rather than through reflective calls. The other settings of the mappers are the <code>spring.jackson.*</code>
+ * properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.json.blackbird.enable", havingValue = "true", matchIfMissing = true)
+public class JsonSerializationConfig {
+
+    @Bean
+    BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
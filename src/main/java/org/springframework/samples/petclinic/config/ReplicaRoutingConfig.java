@@ -0,0 +1,86 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.samples.petclinic.util.ReplicaRoutingFilter;
+
+/**
+ * Sends read-only transactions to a read replica, configured with <code>petclinic.datasource.replica.*</code>:
+ * <ul>
+ * <li><code>url</code>, <code>username</code>, <code>password</code> and <code>hikari.*</code> as for
+ * <code>spring.datasource</code>; the replica pool inherits the <code>spring.datasource.hikari.*</code> settings</li>
+ * <li><code>lag-query</code>, returning the replication lag in seconds, and <code>max-lag</code> above which reads go to
+ * the primary; both are checked every <code>check-interval</code></li>
+ * <li><code>stickiness</code>, the period during which a client that wrote reads from the primary</li>
+ * </ul>
+ * Without a replica url the auto-configured <code>DataSource</code> is used for everything.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+@Configuration
+@ConditionalOnProperty("petclinic.datasource.replica.url")
+public class ReplicaRoutingConfig {
+
+    private static final String REPLICA_PREFIX = "petclinic.datasource.replica";
+
+    // the primary and replica pools are not beans, so that the SQL accounting wraps the routing DataSource only
+    @Bean
+    @Primary
+    DataSource dataSource(DataSourceProperties primaryProperties, Environment environment,
+                          ObjectProvider<MeterRegistry> meterRegistry,
+                          @Value("${petclinic.datasource.replica.lag-query:}") String lagQuery,
+                          @Value("${petclinic.datasource.replica.max-lag:5s}") Duration maxLag,
+                          @Value("${petclinic.datasource.replica.check-interval:1s}") Duration checkInterval) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(primaryProperties, "primary");
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        DataSourceProperties replicaProperties = binder.bindOrCreate(REPLICA_PREFIX, DataSourceProperties.class);
+        HikariDataSource replica = pool(replicaProperties, "replica");
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        binder.bind(REPLICA_PREFIX + ".hikari", Bindable.ofInstance(replica));
+        replica.setReadOnly(true);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagQuery, maxLag);
+        routing.startChecks(checkInterval);
+        meterRegistry.ifAvailable(registry -> Gauge.builder("petclinic.datasource.replica.available",
+                routing, r -> r.isReplicaAvailable() ? 1 : 0)
+            .description("Whether read-only transactions are routed to the replica")
+            .register(registry));
+        return routing.lazy();
+    }
+
+    @Bean
+    FilterRegistrationBean<ReplicaRoutingFilter> replicaRoutingFilter(
+        @Value("${petclinic.datasource.replica.stickiness:5s}") Duration stickiness) {
+        FilterRegistrationBean<ReplicaRoutingFilter> registration =
+            new FilterRegistrationBean<>(new ReplicaRoutingFilter(stickiness));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.config;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.samples.petclinic.util.SqlAccountingFilter;
+import org.springframework.samples.petclinic.util.SqlStatistics;
+
+/**
+ * Per-request SQL accounting: wraps the <code>DataSource</code> to count statements, rows and execution time, and
+ * reports them per controller method through Micrometer and, if <code>petclinic.sql-accounting.server-timing</code>
+ * is set, in a <code>Server-Timing</code> response header.
+ * <p>
+ * On unless <code>petclinic.sql-accounting.enable</code> is <code>false</code>, so that the database-bound endpoints
+ * show in the metrics of production traffic. Only the <code>Server-Timing</code> header, which buffers the response
+ * body, is opt-in.
+ *
+ * @see SqlAccountingFilter
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.sql-accounting.enable", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingConfig {
+
+    @Bean
+    static BeanPostProcessor sqlAccountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return SqlStatistics.instrument(beanName, dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<SqlAccountingFilter> sqlAccountingFilter(MeterRegistry meterRegistry,
+                                                                    @Value("${petclinic.sql-accounting.server-timing:false}") boolean serverTiming) {
+        FilterRegistrationBean<SqlAccountingFilter> registration =
+            new FilterRegistrationBean<>(new SqlAccountingFilter(meterRegistry, serverTiming));
+        // ahead of Spring Security, so that the user lookups of authentication are accounted for too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+}
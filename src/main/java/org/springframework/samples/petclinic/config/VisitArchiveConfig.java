@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.config;
+
+import java.time.Clock;
+import java.time.Period;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.util.VisitArchiver;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Archives the visits older than <code>petclinic.visits.archive.retention</code> every night, or according to
+ * <code>petclinic.visits.archive.cron</code>, when <code>petclinic.visits.archive.enable</code> is set. Without it
+ * no visit is ever archived.
+ *
+ * @see VisitArchiver
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "petclinic.visits.archive.enable", havingValue = "true")
+public class VisitArchiveConfig {
+
+    @Bean
+    VisitArchiver visitArchiver(ClinicService clinicService, MeterRegistry meterRegistry,
+                                @Value("${petclinic.visits.archive.retention:2y}") Period retention,
+                                @Value("${petclinic.visits.archive.batch-size:1000}") int batchSize) {
+        return new VisitArchiver(clinicService, retention, batchSize, Clock.systemDefaultZone(), meterRegistry);
+    }
+
+}
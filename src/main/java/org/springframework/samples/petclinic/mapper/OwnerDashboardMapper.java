@@ -0,0 +1,14 @@
+package org.springframework.samples.petclinic.mapper;
+
+import org.mapstruct.Mapper;
+import org.springframework.samples.petclinic.rest.dto.OwnerDashboardDto;
+import org.springframework.samples.petclinic.service.OwnerDashboard;
+
+/**
+ * Maps OwnerDashboard & OwnerDashboardDto using Mapstruct
+ */
+@Mapper(uses = {OwnerMapper.class, PetTypeMapper.class, VetMapper.class, SpecialtyMapper.class})
+public interface OwnerDashboardMapper {
+
+    OwnerDashboardDto toOwnerDashboardDto(OwnerDashboard ownerDashboard);
+}
@@ -15,8 +15,6 @@
  */
 package org.springframework.samples.petclinic.model;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
 
 import jakarta.persistence.*;
@@ -36,6 +34,10 @@ import java.util.*;
 @Entity
 @Table(name = "owners")
 public class Owner extends Person {
+
+    private static final Comparator<Pet> PET_ORDER =
+        Comparator.comparing(Pet::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
     @Column(name = "address")
     @NotEmpty
     private String address;
@@ -52,6 +54,8 @@ public class Owner extends Person {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
     private Set<Pet> pets;
 
+    @Transient
+    private final SortedView<Pet> sortedPets = new SortedView<>(PET_ORDER);
 
     public String getAddress() {
         return this.address;
@@ -86,23 +90,34 @@ public class Owner extends Person {
 
     protected void setPetsInternal(Set<Pet> pets) {
         this.pets = pets;
+        this.sortedPets.changed();
     }
 
+    /**
+     * @return the pets sorted by name, as an unmodifiable list
+     */
     public List<Pet> getPets() {
-        List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-        PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedPets);
+        return this.sortedPets.get(getPetsInternal());
     }
 
     public void setPets(List<Pet> pets) {
-        this.pets = new HashSet<>(pets);
+        setPetsInternal(new HashSet<>(pets));
     }
 
     public void addPet(Pet pet) {
-        getPetsInternal().add(pet);
+        if (getPetsInternal().add(pet)) {
+            this.sortedPets.changed();
+        }
         pet.setOwner(this);
     }
 
+    /**
+     * Called by a pet of this owner whose name, by which the pets are sorted, changed.
+     */
+    void petRenamed() {
+        this.sortedPets.changed();
+    }
+
     /**
      * Return the Pet with the given name, or null if none found for this Owner.
      *
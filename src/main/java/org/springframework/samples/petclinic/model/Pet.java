@@ -15,8 +15,10 @@
  */
 package org.springframework.samples.petclinic.model;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
+import org.hibernate.annotations.SqlFragmentAlias;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.*;
@@ -33,8 +35,19 @@ import java.util.*;
  */
 @Entity
 @Table(name = "pets")
+@FilterDef(name = Pet.RECENT_VISITS, parameters = @ParamDef(name = "visitLimit", type = Integer.class))
 public class Pet extends NamedEntity {
 
+    /**
+     * Hibernate filter restricting the loaded visits to the <code>visitLimit</code> most recent ones of each pet: a
+     * visit is loaded when there are fewer than <code>visitLimit</code> visits of the pet on a later date, or on the
+     * same date with a greater id, the visit itself included.
+     */
+    public static final String RECENT_VISITS = "recentVisits";
+
+    private static final Comparator<Visit> VISIT_ORDER =
+        Comparator.comparing(Visit::getDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder())).reversed();
+
     @Column(name = "birth_date", columnDefinition = "DATE")
     private LocalDate birthDate;
 
@@ -47,8 +60,18 @@ public class Pet extends NamedEntity {
     private Owner owner;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "pet", fetch = FetchType.EAGER)
+    @Filter(name = RECENT_VISITS, deduceAliasInjectionPoints = false,
+        aliases = @SqlFragmentAlias(alias = "alias", table = "visits"), condition =
+        "NOT EXISTS (SELECT 1 FROM visits newer WHERE newer.pet_id = {alias}.pet_id AND (newer.visit_date > {alias}.visit_date " +
+            "OR newer.visit_date = {alias}.visit_date AND newer.id >= {alias}.id) LIMIT 1 OFFSET :visitLimit)")
     private Set<Visit> visits;
 
+    @Transient
+    private Integer visitCount;
+
+    @Transient
+    private final SortedView<Visit> sortedVisits = new SortedView<>(VISIT_ORDER);
+
     public LocalDate getBirthDate() {
         return this.birthDate;
     }
@@ -57,6 +80,14 @@ public class Pet extends NamedEntity {
         this.birthDate = birthDate;
     }
 
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        if (this.owner != null) {
+            this.owner.petRenamed();
+        }
+    }
+
     public PetType getType() {
         return this.type;
     }
@@ -82,20 +113,43 @@ public class Pet extends NamedEntity {
 
     protected void setVisitsInternal(Set<Visit> visits) {
         this.visits = visits;
+        this.sortedVisits.changed();
     }
 
+    /**
+     * @return the visits, most recent first, as an unmodifiable list
+     */
     public List<Visit> getVisits() {
-        List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-        PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-        return Collections.unmodifiableList(sortedVisits);
+        return this.sortedVisits.get(getVisitsInternal());
     }
 
     public void setVisits(List<Visit> visits) {
-        this.visits = new HashSet<>(visits);
+        setVisitsInternal(new HashSet<>(visits));
+    }
+
+    /**
+     * @return the number of visits of the pet when it was loaded, which may be more than the loaded ones, or the
+     * number of loaded visits when it was not counted
+     */
+    public Integer getVisitCount() {
+        return this.visitCount != null ? this.visitCount : getVisitsInternal().size();
+    }
+
+    public void setVisitCount(Integer visitCount) {
+        this.visitCount = visitCount;
+    }
+
+    /**
+     * Called by a visit of this pet whose date, by which the visits are sorted, changed.
+     */
+    void visitRedated() {
+        this.sortedVisits.changed();
     }
 
     public void addVisit(Visit visit) {
-        getVisitsInternal().add(visit);
+        if (getVisitsInternal().add(visit)) {
+            this.sortedVisits.changed();
+        }
         visit.setPet(this);
     }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorted, unmodifiable view of a child collection of an entity, e.g. the pets of an owner.
+ * <p>
+ * The view is sorted when first read and then kept until the collection changes, so that reading it neither copies
+ * nor sorts. The entity bumps a modification counter through {@link #changed()} when it changes the collection or
+ * when an element changes its sort key. The view is also rebuilt when the entity holds another collection, e.g. one
+ * set by Hibernate, or when the collection no longer has the size of the view, e.g. after an element was added to it
+ * directly. Other changes to the collection, leaving it the same size, have to be followed by {@link #changed()}.
+ * <p>
+ * The views are immutable snapshots, so that an entity shared between threads can be read concurrently.
+ */
+final class SortedView<E> {
+
+    private final Comparator<? super E> comparator;
+
+    private volatile int modCount;
+
+    private volatile Snapshot<E> snapshot;
+
+    SortedView(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    List<E> get(Collection<E> elements) {
+        int modCount = this.modCount;
+        Snapshot<E> current = this.snapshot;
+        if (current == null || current.modCount() != modCount || current.elements() != elements
+            || current.view().size() != elements.size()) {
+            current = new Snapshot<>(elements, modCount, sort(elements));
+            this.snapshot = current;
+        }
+        return current.view();
+    }
+
+    /**
+     * Record that the collection, or the sort key of one of its elements, changed. The entities are not meant to be
+     * changed concurrently, so the counter is not incremented atomically.
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    void changed() {
+        this.modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> sort(Collection<E> elements) {
+        E[] array = (E[]) elements.toArray();
+        Arrays.sort(array, this.comparator);
+        return Collections.unmodifiableList(Arrays.asList(array));
+    }
+
+    /**
+     * A sorted view of the given collection, as of the given modification count.
+     */
+    private record Snapshot<E>(Collection<E> elements, int modCount, List<E> view) {
+    }
+
+}
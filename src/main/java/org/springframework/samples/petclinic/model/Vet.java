@@ -16,8 +16,8 @@
 package org.springframework.samples.petclinic.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 import jakarta.xml.bind.annotation.XmlElement;
@@ -33,13 +33,22 @@ import java.util.*;
  */
 @Entity
 @Table(name = "vets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vets")
 public class Vet extends Person {
 
+    private static final Comparator<Specialty> SPECIALTY_ORDER =
+        Comparator.comparing(Specialty::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
         inverseJoinColumns = @JoinColumn(name = "specialty_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vet-specialties")
     private Set<Specialty> specialties;
 
+    @Transient
+    private final SortedView<Specialty> sortedSpecialties = new SortedView<>(SPECIALTY_ORDER);
+
     @JsonIgnore
     protected Set<Specialty> getSpecialtiesInternal() {
         if (this.specialties == null) {
@@ -50,17 +59,19 @@ public class Vet extends Person {
 
     protected void setSpecialtiesInternal(Set<Specialty> specialties) {
         this.specialties = specialties;
+        this.sortedSpecialties.changed();
     }
 
+    /**
+     * @return the specialties sorted by name, as an unmodifiable list
+     */
     @XmlElement
     public List<Specialty> getSpecialties() {
-        List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-        PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedSpecs);
+        return this.sortedSpecialties.get(getSpecialtiesInternal());
     }
 
     public void setSpecialties(List<Specialty> specialties) {
-        this.specialties = new HashSet<>(specialties);
+        setSpecialtiesInternal(new HashSet<>(specialties));
     }
 
     @JsonIgnore
@@ -69,11 +80,14 @@ public class Vet extends Person {
     }
 
     public void addSpecialty(Specialty specialty) {
-        getSpecialtiesInternal().add(specialty);
+        if (getSpecialtiesInternal().add(specialty)) {
+            this.sortedSpecialties.changed();
+        }
     }
 
     public void clearSpecialties() {
         getSpecialtiesInternal().clear();
+        this.sortedSpecialties.changed();
     }
 
 }
@@ -75,6 +75,9 @@ public class Visit extends BaseEntity {
      */
     public void setDate(LocalDate date) {
         this.date = date;
+        if (this.pet != null) {
+            this.pet.visitRedated();
+        }
     }
 
     /**
@@ -16,10 +16,14 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -47,10 +51,68 @@ public interface OwnerRepository {
      * Retrieve an <code>Owner</code> from the data store by id.
      *
      * @param id the id to search for
-     * @return the <code>Owner</code> if found
-     * @throws org.springframework.dao.DataRetrievalFailureException if not found
+     * @return the <code>Owner</code>, or an empty <code>Optional</code> if not found
      */
-    Owner findById(int id) throws DataAccessException;
+    Optional<Owner> findById(int id) throws DataAccessException;
+
+    /**
+     * Retrieve an <code>Owner</code> from the data store by id, with only the most recent visits of each pet.
+     *
+     * @param id the id to search for
+     * @param visitLimit the maximum number of visits to load per pet
+     * @return the <code>Owner</code>, or an empty <code>Optional</code> if not found
+     * @see Pet#getVisitCount()
+     */
+    Optional<Owner> findById(int id, int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Owner</code>s with the given ids from the data store.
+     *
+     * @param ids the ids to search for
+     * @return the <code>Owner</code>s found, in the order of the ids; the ids of no owner are left out
+     */
+    List<Owner> findByIds(Collection<Integer> ids) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Owner</code>s with the given ids from the data store, like {@link #findByIds(Collection)},
+     * with only the most recent visits of each pet.
+     *
+     * @param visitLimit the maximum number of visits to load per pet
+     */
+    List<Owner> findByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Owner</code>s with the given ids from the data store, like {@link #findByIds(Collection)},
+     * with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load; the pets are not loaded
+     */
+    List<Owner> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+
+    /**
+     * Retrieve <code>Owner</code>s from the data store by last name, like {@link #findByLastName(String)}, with only
+     * the most recent visits of each pet.
+     *
+     * @param visitLimit the maximum number of visits to load per pet
+     */
+    Collection<Owner> findByLastName(String lastName, int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve an <code>Owner</code> from the data store by id, with only the given properties and the id loaded.
+     *
+     * @param id the id to search for
+     * @param properties the names of the basic properties to load; the pets are not loaded
+     * @return the <code>Owner</code>, or an empty <code>Optional</code> if not found
+     */
+    Optional<Owner> findById(int id, Set<String> properties) throws DataAccessException;
+
+    /**
+     * Retrieve <code>Owner</code>s from the data store by last name, like {@link #findByLastName(String)}, with only
+     * the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load; the pets are not loaded
+     */
+    Collection<Owner> findByLastName(String lastName, Set<String> properties) throws DataAccessException;
 
 
     /**
@@ -68,6 +130,20 @@ public interface OwnerRepository {
      * found)
      */
 	Collection<Owner> findAll() throws DataAccessException;
+
+    /**
+     * Retrieve all <code>Owner</code>s from the data store, with only the most recent visits of each pet.
+     *
+     * @param visitLimit the maximum number of visits to load per pet
+     */
+	Collection<Owner> findAll(int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve all <code>Owner</code>s from the data store, with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load; the pets are not loaded
+     */
+	Collection<Owner> findAll(Set<String> properties) throws DataAccessException;
 	
     /**
      * Delete an <code>Owner</code> to the data store by <code>Owner</code>.
@@ -17,6 +17,8 @@ package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -46,10 +48,54 @@ public interface PetRepository {
      * Retrieve a <code>Pet</code> from the data store by id.
      *
      * @param id the id to search for
-     * @return the <code>Pet</code> if found
-     * @throws org.springframework.dao.DataRetrievalFailureException if not found
+     * @return the <code>Pet</code>, or an empty <code>Optional</code> if not found
      */
-    Pet findById(int id) throws DataAccessException;
+    Optional<Pet> findById(int id) throws DataAccessException;
+
+    /**
+     * Retrieve a <code>Pet</code> from the data store by id, with only its most recent visits.
+     *
+     * @param id the id to search for
+     * @param visitLimit the maximum number of visits to load
+     * @return the <code>Pet</code>, or an empty <code>Optional</code> if not found
+     * @see Pet#getVisitCount()
+     */
+    Optional<Pet> findById(int id, int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Pet</code>s with the given ids from the data store.
+     *
+     * @param ids the ids to search for
+     * @return the <code>Pet</code>s found, in the order of the ids; the ids of no pet are left out
+     */
+    List<Pet> findByIds(Collection<Integer> ids) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Pet</code>s with the given ids from the data store, like {@link #findByIds(Collection)}, with
+     * only the most recent visits of each pet.
+     *
+     * @param visitLimit the maximum number of visits to load per pet
+     */
+    List<Pet> findByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Pet</code>s with the given ids from the data store, like {@link #findByIds(Collection)},
+     * with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load, or <code>owner.id</code>; the type and the visits
+     *                   are not loaded
+     */
+    List<Pet> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+
+    /**
+     * Retrieve a <code>Pet</code> from the data store by id, with only the given properties and the id loaded.
+     *
+     * @param id the id to search for
+     * @param properties the names of the basic properties to load, or <code>owner.id</code>; the type and the visits
+     *                   are not loaded
+     * @return the <code>Pet</code>, or an empty <code>Optional</code> if not found
+     */
+    Optional<Pet> findById(int id, Set<String> properties) throws DataAccessException;
 
     /**
      * Save a <code>Pet</code> to the data store, either inserting or updating it.
@@ -67,6 +113,21 @@ public interface PetRepository {
      */
 	Collection<Pet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve all <code>Pet</code>s from the data store, with only the most recent visits of each pet.
+     *
+     * @param visitLimit the maximum number of visits to load per pet
+     */
+	Collection<Pet> findAll(int visitLimit) throws DataAccessException;
+
+    /**
+     * Retrieve all <code>Pet</code>s from the data store, with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load, or <code>owner.id</code>; the type and the visits
+     *                   are not loaded
+     */
+	Collection<Pet> findAll(Set<String> properties) throws DataAccessException;
+
     /**
      * Delete an <code>Pet</code> to the data store by <code>Pet</code>.
      *
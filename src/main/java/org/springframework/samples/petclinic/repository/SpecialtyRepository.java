@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.dao.DataAccessException;
@@ -30,7 +31,7 @@ import org.springframework.samples.petclinic.model.Specialty;
 
 public interface SpecialtyRepository {
 
-	Specialty findById(int id) throws DataAccessException;
+	Optional<Specialty> findById(int id) throws DataAccessException;
 
     List<Specialty> findSpecialtiesByNameIn(Set<String> names);
 
@@ -16,6 +16,9 @@
 package org.springframework.samples.petclinic.repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
@@ -39,7 +42,39 @@ public interface VetRepository {
      */
     Collection<Vet> findAll() throws DataAccessException;
     
-	Vet findById(int id) throws DataAccessException;
+	Optional<Vet> findById(int id) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Vet</code>s with the given ids from the data store.
+     *
+     * @param ids the ids to search for
+     * @return the <code>Vet</code>s found, in the order of the ids; the ids of no vet are left out
+     */
+	List<Vet> findByIds(Collection<Integer> ids) throws DataAccessException;
+
+    /**
+     * Retrieve the <code>Vet</code>s with the given ids from the data store, like {@link #findByIds(Collection)},
+     * with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load; the specialties are not loaded
+     */
+	List<Vet> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+
+    /**
+     * Retrieve all <code>Vet</code>s from the data store, with only the given properties and the id loaded.
+     *
+     * @param properties the names of the basic properties to load; the specialties are not loaded
+     */
+	Collection<Vet> findAll(Set<String> properties) throws DataAccessException;
+
+    /**
+     * Retrieve a <code>Vet</code> from the data store by id, with only the given properties and the id loaded.
+     *
+     * @param id the id to search for
+     * @param properties the names of the basic properties to load; the specialties are not loaded
+     * @return the <code>Vet</code>, or an empty <code>Optional</code> if not found
+     */
+	Optional<Vet> findById(int id, Set<String> properties) throws DataAccessException;
 
 	void save(Vet vet) throws DataAccessException;
 	
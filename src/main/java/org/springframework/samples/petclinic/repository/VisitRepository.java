@@ -15,8 +15,10 @@
  */
 package org.springframework.samples.petclinic.repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -44,10 +46,47 @@ public interface VisitRepository {
 
     List<Visit> findByPetId(Integer petId);
     
-	Visit findById(int id) throws DataAccessException;
+	Optional<Visit> findById(int id) throws DataAccessException;
 	
 	Collection<Visit> findAll() throws DataAccessException;
 
 	void delete(Visit visit) throws DataAccessException;
 
+    /**
+     * Retrieve a page of the visits between two dates, ordered by date and id, for keyset pagination: the next page
+     * is that after the date and id of the last visit of the previous one.
+     *
+     * @param from the first date, inclusive, or <code>null</code> for no lower bound
+     * @param to the last date, inclusive, or <code>null</code> for no upper bound
+     * @param afterDate the date of the last visit of the previous page, or <code>null</code> for the first page
+     * @param afterId the id of the last visit of the previous page, ignored without <code>afterDate</code>
+     * @param limit the maximum number of visits
+     * @return the visits, with their <code>Pet</code>
+     */
+    List<Visit> findByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit)
+        throws DataAccessException;
+
+    /**
+     * Retrieve a page of the visits of a pet between two dates, like {@link #findByDateRange}.
+     */
+    List<Visit> findByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+                                        int limit) throws DataAccessException;
+
+    /**
+     * Retrieve a page of the whole visit history of a pet, the archived visits included, like
+     * {@link #findByDateRange}. The other methods only retrieve the visits that are not archived.
+     */
+    List<Visit> findHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+                                   int limit) throws DataAccessException;
+
+    /**
+     * Move the oldest visits before a date to the archive. The visits moved are locked until the end of the
+     * transaction, so that they are archived as they are deleted.
+     *
+     * @param before the date of the first visit to keep
+     * @param limit the maximum number of visits to move
+     * @return the number of visits moved, less than <code>limit</code> when none is left before the date
+     */
+    int archive(LocalDate before, int limit) throws DataAccessException;
+
 }
@@ -16,14 +16,14 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -32,12 +32,13 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
-import javax.sql.DataSource;
 import jakarta.transaction.Transactional;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * A simple JDBC-based implementation of the {@link OwnerRepository} interface.
@@ -55,19 +56,29 @@ import java.util.Map;
 @Profile("jdbc")
 public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
+    private static final JdbcProjection<Owner> PROJECTION = new JdbcProjection<>(Owner::new, "owners", Map.of(
+        "firstName", JdbcProjection.column("first_name", (owner, rs, i) -> owner.setFirstName(rs.getString(i))),
+        "lastName", JdbcProjection.column("last_name", (owner, rs, i) -> owner.setLastName(rs.getString(i))),
+        "address", JdbcProjection.column("address", (owner, rs, i) -> owner.setAddress(rs.getString(i))),
+        "city", JdbcProjection.column("city", (owner, rs, i) -> owner.setCity(rs.getString(i))),
+        "telephone", JdbcProjection.column("telephone", (owner, rs, i) -> owner.setTelephone(rs.getString(i)))));
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    private NamedParameterJdbcTemplate scanJdbcTemplate;
+
     private SimpleJdbcInsert insertOwner;
 
     @Autowired
-    public JdbcOwnerRepositoryImpl(DataSource dataSource) {
+    public JdbcOwnerRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                   @Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate) {
 
-        this.insertOwner = new SimpleJdbcInsert(dataSource)
+        this.insertOwner = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate())
             .withTableName("owners")
             .usingGeneratedKeyColumns("id");
 
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.scanJdbcTemplate = scanJdbcTemplate;
     }
 
 
@@ -78,15 +89,34 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
      */
     @Override
     public Collection<Owner> findByLastName(String lastName) throws DataAccessException {
+        List<Owner> owners = findOwnersByLastName(lastName);
+        loadOwnersPetsAndVisits(owners);
+        return owners;
+    }
+
+    @Override
+    public Collection<Owner> findByLastName(String lastName, int visitLimit) throws DataAccessException {
+        List<Owner> owners = findOwnersByLastName(lastName);
+        for (Owner owner : owners) {
+            loadPetsAndRecentVisits(owner, visitLimit);
+        }
+        return owners;
+    }
+
+    @Override
+    public Collection<Owner> findByLastName(String lastName, Set<String> properties) throws DataAccessException {
+        return PROJECTION.query(this.namedParameterJdbcTemplate, properties, "WHERE last_name like :lastName",
+            Map.of("lastName", lastName + "%"));
+    }
+
+    private List<Owner> findOwnersByLastName(String lastName) {
         Map<String, Object> params = new HashMap<>();
         params.put("lastName", lastName + "%");
-        List<Owner> owners = this.namedParameterJdbcTemplate.query(
+        return this.namedParameterJdbcTemplate.query(
             "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE last_name like :lastName",
             params,
-            BeanPropertyRowMapper.newInstance(Owner.class)
+            JdbcOwnerRowMapper.INSTANCE
         );
-        loadOwnersPetsAndVisits(owners);
-        return owners;
     }
 
     /**
@@ -94,31 +124,108 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
      * for the corresponding owner, if not already loaded.
      */
     @Override
-    public Owner findById(int id) throws DataAccessException {
-        Owner owner;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            owner = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(Owner.class)
-            );
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Owner.class, id);
-        }
-        loadPetsAndVisits(owner);
+    public Optional<Owner> findById(int id) throws DataAccessException {
+        Optional<Owner> owner = findOwnerById(id);
+        owner.ifPresent(this::loadPetsAndVisits);
         return owner;
     }
 
+    @Override
+    public Optional<Owner> findById(int id, int visitLimit) throws DataAccessException {
+        Optional<Owner> owner = findOwnerById(id);
+        owner.ifPresent(found -> loadPetsAndRecentVisits(found, visitLimit));
+        return owner;
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+        return PROJECTION.queryByIds(this.namedParameterJdbcTemplate, properties, ids);
+    }
+
+    @Override
+    public Optional<Owner> findById(int id, Set<String> properties) throws DataAccessException {
+        return DataAccessUtils.optionalResult(
+            PROJECTION.query(this.namedParameterJdbcTemplate, properties, "WHERE id= :id", Map.of("id", id)));
+    }
+
+    private Optional<Owner> findOwnerById(int id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return DataAccessUtils.optionalResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :id",
+            params,
+            JdbcOwnerRowMapper.INSTANCE
+        ));
+    }
+
     public void loadPetsAndVisits(final Owner owner) {
         Map<String, Object> params = new HashMap<>();
         params.put("id", owner.getId());
         final List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
-            "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id WHERE owner_id=:id ORDER BY pets.id",
+            JdbcPetVisitExtractor.petsAndVisits("owner_id=:id"),
             params,
             new JdbcPetVisitExtractor()
         );
+        addPets(owner, pets);
+    }
+
+    /**
+     * Loads the {@link Pet Pets} of the supplied {@link Owner} with only their <code>visitLimit</code> most recent
+     * {@link Visit Visits}, and the number of visits of each pet.
+     */
+    private void loadPetsAndRecentVisits(Owner owner, int visitLimit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", owner.getId());
+        params.put("visit_limit", visitLimit);
+        List<JdbcPet> pets = this.namedParameterJdbcTemplate.query(
+            JdbcPetVisitExtractor.petsAndRecentVisits("owner_id=:id"),
+            params,
+            new JdbcPetVisitExtractor(JdbcPetRowMapper.WITH_VISIT_COUNT)
+        );
+        addPets(owner, pets);
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids) throws DataAccessException {
+        return findOwnersByIds(ids, null);
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException {
+        return findOwnersByIds(ids, visitLimit);
+    }
+
+    /**
+     * Loads the {@link Owner Owners} with the given ids with one query per chunk of ids, then their {@link Pet Pets}
+     * and {@link Visit Visits} with one query per chunk of owners.
+     *
+     * @param visitLimit the maximum number of visits to load per pet, or <code>null</code> to load them all
+     */
+    private List<Owner> findOwnersByIds(Collection<Integer> ids, Integer visitLimit) {
+        Map<Integer, Owner> owners = new HashMap<>();
+        for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+            this.namedParameterJdbcTemplate.query(
+                "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id IN (:ids)",
+                Map.of("ids", chunk),
+                JdbcOwnerRowMapper.INSTANCE
+            ).forEach(owner -> owners.put(owner.getId(), owner));
+        }
+        Collection<PetType> petTypes = getPetTypes();
+        for (List<Integer> chunk : EntityUtils.chunk(owners.keySet(), EntityUtils.IN_CHUNK_SIZE)) {
+            List<JdbcPet> pets = visitLimit == null
+                ? this.namedParameterJdbcTemplate.query(JdbcPetVisitExtractor.petsAndVisits("owner_id IN (:ids)"),
+                    Map.of("ids", chunk), new JdbcPetVisitExtractor())
+                : this.namedParameterJdbcTemplate.query(JdbcPetVisitExtractor.petsAndRecentVisits("owner_id IN (:ids)"),
+                    Map.of("ids", chunk, "visit_limit", visitLimit), new JdbcPetVisitExtractor(JdbcPetRowMapper.WITH_VISIT_COUNT));
+            for (JdbcPet pet : pets) {
+                pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
+                owners.get(pet.getOwnerId()).addPet(pet);
+            }
+        }
+        return EntityUtils.orderByIds(owners.values(), ids);
+    }
+
+    private void addPets(Owner owner, List<JdbcPet> pets) {
         Collection<PetType> petTypes = getPetTypes();
         for (JdbcPet pet : pets) {
             pet.setType(EntityUtils.getById(petTypes, PetType.class, pet.getTypeId()));
@@ -143,7 +250,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
     public Collection<PetType> getPetTypes() throws DataAccessException {
         return this.namedParameterJdbcTemplate.query(
             "SELECT id, name FROM types ORDER BY name", new HashMap<String, Object>(),
-            BeanPropertyRowMapper.newInstance(PetType.class));
+            JdbcPetTypeRowMapper.INSTANCE);
     }
 
     /**
@@ -160,16 +267,33 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
 
 	@Override
 	public Collection<Owner> findAll() throws DataAccessException {
-		List<Owner> owners = this.namedParameterJdbcTemplate.query(
+		List<Owner> owners = this.scanJdbcTemplate.query(
 	            "SELECT id, first_name, last_name, address, city, telephone FROM owners",
 	            new HashMap<String, Object>(),
-	            BeanPropertyRowMapper.newInstance(Owner.class));
+	            JdbcOwnerRowMapper.INSTANCE);
 		for (Owner owner : owners) {
             loadPetsAndVisits(owner);
         }
 	    return owners;
 	}
 
+	@Override
+	public Collection<Owner> findAll(int visitLimit) throws DataAccessException {
+		List<Owner> owners = this.scanJdbcTemplate.query(
+	            "SELECT id, first_name, last_name, address, city, telephone FROM owners",
+	            new HashMap<String, Object>(),
+	            JdbcOwnerRowMapper.INSTANCE);
+		for (Owner owner : owners) {
+            loadPetsAndRecentVisits(owner, visitLimit);
+        }
+	    return owners;
+	}
+
+	@Override
+	public Collection<Owner> findAll(Set<String> properties) throws DataAccessException {
+		return PROJECTION.query(this.scanJdbcTemplate, properties, "", Map.of());
+	}
+
 	@Override
 	@Transactional
 	public void delete(Owner owner) throws DataAccessException {
@@ -187,6 +311,7 @@ public class JdbcOwnerRepositoryImpl implements OwnerRepository {
             	visit_params.put("id", visit.getId());
             	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
             }
+            this.namedParameterJdbcTemplate.update("DELETE FROM visits_archive WHERE pet_id=:id", pet_params);
             this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
         }
         this.namedParameterJdbcTemplate.update("DELETE FROM owners WHERE id=:id", owner_params);
@@ -15,23 +15,26 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
@@ -55,8 +58,20 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcPetRepositoryImpl implements PetRepository {
 
+    private static final JdbcProjection<Pet> PROJECTION = new JdbcProjection<>(Pet::new, "pets", Map.of(
+        "name", JdbcProjection.column("name", (pet, rs, i) -> pet.setName(rs.getString(i))),
+        "birthDate", JdbcProjection.column("birth_date", (pet, rs, i) -> pet.setBirthDate(rs.getObject(i, LocalDate.class))),
+        "owner.id", JdbcProjection.column("owner_id", (pet, rs, i) -> {
+            Owner owner = new Owner();
+            owner.setId(rs.getInt(i));
+            pet.setOwner(owner);
+        }),
+        "visitCount", JdbcProjection.column(JdbcPetVisitExtractor.VISIT_COUNT, (pet, rs, i) -> pet.setVisitCount(rs.getInt(i)))));
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    private NamedParameterJdbcTemplate scanJdbcTemplate;
+
     private SimpleJdbcInsert insertPet;
 
     private OwnerRepository ownerRepository;
@@ -65,12 +80,14 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 
 
     @Autowired
-    public JdbcPetRepositoryImpl(DataSource dataSource,
+    public JdbcPetRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+    		@Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate,
     		OwnerRepository ownerRepository,
     		VisitRepository visitRepository) {
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.scanJdbcTemplate = scanJdbcTemplate;
 
-        this.insertPet = new SimpleJdbcInsert(dataSource)
+        this.insertPet = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate())
             .withTableName("pets")
             .usingGeneratedKeyColumns("id");
 
@@ -84,21 +101,38 @@ public class JdbcPetRepositoryImpl implements PetRepository {
         return this.namedParameterJdbcTemplate.query(
             "SELECT id, name FROM types ORDER BY name",
             params,
-            BeanPropertyRowMapper.newInstance(PetType.class));
+            JdbcPetTypeRowMapper.INSTANCE);
     }
 
     @Override
-    public Pet findById(int id) throws DataAccessException {
-        Integer ownerId;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            ownerId = this.namedParameterJdbcTemplate.queryForObject("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class);
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Pet.class, id);
-        }
-        Owner owner = this.ownerRepository.findById(ownerId);
-        return EntityUtils.getById(owner.getPets(), Pet.class, id);
+    public Optional<Pet> findById(int id) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        Optional<Integer> ownerId = DataAccessUtils.optionalResult(
+            this.namedParameterJdbcTemplate.queryForList("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class));
+        return ownerId.flatMap(this.ownerRepository::findById)
+            .map(owner -> EntityUtils.getById(owner.getPets(), Pet.class, id));
+    }
+
+    @Override
+    public Optional<Pet> findById(int id, int visitLimit) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        Optional<Integer> ownerId = DataAccessUtils.optionalResult(
+            this.namedParameterJdbcTemplate.queryForList("SELECT owner_id FROM pets WHERE id=:id", params, Integer.class));
+        return ownerId.flatMap(owner -> this.ownerRepository.findById(owner, visitLimit))
+            .map(owner -> EntityUtils.getById(owner.getPets(), Pet.class, id));
+    }
+
+    @Override
+    public List<Pet> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+        return PROJECTION.queryByIds(this.namedParameterJdbcTemplate, properties, ids);
+    }
+
+    @Override
+    public Optional<Pet> findById(int id, Set<String> properties) throws DataAccessException {
+        return DataAccessUtils.optionalResult(
+            PROJECTION.query(this.namedParameterJdbcTemplate, properties, "WHERE id=:id", Map.of("id", id)));
     }
 
     @Override
@@ -132,17 +166,17 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 		Map<String, Object> params = new HashMap<>();
 		Collection<Pet> pets = new ArrayList<Pet>();
 		Collection<JdbcPet> jdbcPets = new ArrayList<JdbcPet>();
-		jdbcPets = this.namedParameterJdbcTemplate
+		jdbcPets = this.scanJdbcTemplate
 				.query("SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets",
 				params,
-				new JdbcPetRowMapper());
+				JdbcPetRowMapper.INSTANCE);
 		Collection<PetType> petTypes = this.namedParameterJdbcTemplate.query("SELECT id, name FROM types ORDER BY name",
 				new HashMap<String,
-				Object>(), BeanPropertyRowMapper.newInstance(PetType.class));
-		Collection<Owner> owners = this.namedParameterJdbcTemplate.query(
+				Object>(), JdbcPetTypeRowMapper.INSTANCE);
+		Collection<Owner> owners = this.scanJdbcTemplate.query(
 				"SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY last_name",
 				new HashMap<String, Object>(),
-				BeanPropertyRowMapper.newInstance(Owner.class));
+				JdbcOwnerRowMapper.INSTANCE);
 		for (JdbcPet jdbcPet : jdbcPets) {
 			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
 			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
@@ -152,6 +186,76 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 		return pets;
 	}
 
+	@Override
+	public Collection<Pet> findAll(int visitLimit) throws DataAccessException {
+		Map<String, Object> params = new HashMap<>();
+		params.put("visit_limit", visitLimit);
+		List<JdbcPet> jdbcPets = this.scanJdbcTemplate.query(
+				"SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, " + JdbcPetVisitExtractor.VISIT_COUNT +
+					", visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets " +
+					"LEFT OUTER JOIN visits ON pets.id = visits.pet_id AND " + JdbcPetVisitExtractor.RECENT_VISITS +
+					" ORDER BY pets.id",
+				params,
+				new JdbcPetVisitExtractor(JdbcPetRowMapper.WITH_VISIT_COUNT));
+		Collection<PetType> petTypes = this.namedParameterJdbcTemplate.query("SELECT id, name FROM types ORDER BY name",
+				new HashMap<String, Object>(), JdbcPetTypeRowMapper.INSTANCE);
+		Collection<Owner> owners = this.scanJdbcTemplate.query(
+				"SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY last_name",
+				new HashMap<String, Object>(),
+				JdbcOwnerRowMapper.INSTANCE);
+		for (JdbcPet jdbcPet : jdbcPets) {
+			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
+			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
+		}
+		return new ArrayList<>(jdbcPets);
+	}
+
+	@Override
+	public List<Pet> findByIds(Collection<Integer> ids) throws DataAccessException {
+		return findPetsByIds(ids, null);
+	}
+
+	@Override
+	public List<Pet> findByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException {
+		return findPetsByIds(ids, visitLimit);
+	}
+
+	/**
+	 * Loads the pets with the given ids and their visits with one query per chunk of ids, then their owners with one
+	 * query per chunk of owners.
+	 *
+	 * @param visitLimit the maximum number of visits to load per pet, or <code>null</code> to load them all
+	 */
+	private List<Pet> findPetsByIds(Collection<Integer> ids, Integer visitLimit) {
+		List<JdbcPet> jdbcPets = new ArrayList<>();
+		for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+			jdbcPets.addAll(visitLimit == null
+				? this.namedParameterJdbcTemplate.query(JdbcPetVisitExtractor.petsAndVisits("pets.id IN (:ids)"),
+					Map.of("ids", chunk), new JdbcPetVisitExtractor())
+				: this.namedParameterJdbcTemplate.query(JdbcPetVisitExtractor.petsAndRecentVisits("pets.id IN (:ids)"),
+					Map.of("ids", chunk, "visit_limit", visitLimit), new JdbcPetVisitExtractor(JdbcPetRowMapper.WITH_VISIT_COUNT)));
+		}
+		Collection<PetType> petTypes = findPetTypes();
+		List<Owner> owners = new ArrayList<>();
+		Set<Integer> ownerIds = jdbcPets.stream().map(JdbcPet::getOwnerId).collect(Collectors.toSet());
+		for (List<Integer> chunk : EntityUtils.chunk(ownerIds, EntityUtils.IN_CHUNK_SIZE)) {
+			owners.addAll(this.namedParameterJdbcTemplate.query(
+				"SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id IN (:ids)",
+				Map.of("ids", chunk),
+				JdbcOwnerRowMapper.INSTANCE));
+		}
+		for (JdbcPet jdbcPet : jdbcPets) {
+			jdbcPet.setType(EntityUtils.getById(petTypes, PetType.class, jdbcPet.getTypeId()));
+			jdbcPet.setOwner(EntityUtils.getById(owners, Owner.class, jdbcPet.getOwnerId()));
+		}
+		return EntityUtils.orderByIds(new ArrayList<Pet>(jdbcPets), ids);
+	}
+
+	@Override
+	public Collection<Pet> findAll(Set<String> properties) throws DataAccessException {
+		return PROJECTION.query(this.scanJdbcTemplate, properties, "", Map.of());
+	}
+
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
 		Map<String, Object> pet_params = new HashMap<>();
@@ -163,6 +267,7 @@ public class JdbcPetRepositoryImpl implements PetRepository {
 			visit_params.put("id", visit.getId());
 			this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
 		}
+		this.namedParameterJdbcTemplate.update("DELETE FROM visits_archive WHERE pet_id=:id", pet_params);
 		this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
 	}
 
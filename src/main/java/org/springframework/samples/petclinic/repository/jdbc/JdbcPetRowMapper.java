@@ -20,7 +20,6 @@ import org.springframework.jdbc.core.RowMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.Date;
 
 /**
  * {@link RowMapper} implementation mapping data from a {@link ResultSet} to the corresponding properties
@@ -28,6 +27,19 @@ import java.util.Date;
  */
 public class JdbcPetRowMapper implements RowMapper<JdbcPet> {
 
+    static final JdbcPetRowMapper INSTANCE = new JdbcPetRowMapper(false);
+
+    /**
+     * Also maps the <code>visit_count</code> column, see {@link JdbcPetVisitExtractor#VISIT_COUNT}.
+     */
+    static final JdbcPetRowMapper WITH_VISIT_COUNT = new JdbcPetRowMapper(true);
+
+    private final boolean visitCount;
+
+    private JdbcPetRowMapper(boolean visitCount) {
+        this.visitCount = visitCount;
+    }
+
     @Override
     public JdbcPet mapRow(ResultSet rs, int rownum) throws SQLException {
         JdbcPet pet = new JdbcPet();
@@ -36,6 +48,9 @@ public class JdbcPetRowMapper implements RowMapper<JdbcPet> {
         pet.setBirthDate(rs.getObject("birth_date", LocalDate.class));
         pet.setTypeId(rs.getInt("type_id"));
         pet.setOwnerId(rs.getInt("owner_id"));
+        if (this.visitCount) {
+            pet.setVisitCount(rs.getInt("visit_count"));
+        }
         return pet;
     }
 }
@@ -16,26 +16,25 @@
 
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
-import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.PetType;
-import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
 import org.springframework.stereotype.Repository;
 
@@ -50,30 +49,28 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+	private NamedParameterJdbcTemplate scanJdbcTemplate;
+
 	private SimpleJdbcInsert insertPetType;
 
 	@Autowired
-	public JdbcPetTypeRepositoryImpl(DataSource dataSource) {
-		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-		this.insertPetType = new SimpleJdbcInsert(dataSource)
+	public JdbcPetTypeRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+			@Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate) {
+		this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+		this.scanJdbcTemplate = scanJdbcTemplate;
+		this.insertPetType = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate())
 	            .withTableName("types")
 	            .usingGeneratedKeyColumns("id");
 	}
 
 	@Override
-	public PetType findById(int id) {
-		PetType petType;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            petType = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM types WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(PetType.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(PetType.class, id);
-        }
-        return petType;
+	public Optional<PetType> findById(int id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return DataAccessUtils.optionalResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM types WHERE id= :id",
+            params,
+            JdbcPetTypeRowMapper.INSTANCE));
 	}
 
     @Override
@@ -85,7 +82,7 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
             petType = this.namedParameterJdbcTemplate.queryForObject(
                 "SELECT id, name FROM types WHERE name= :name",
                 params,
-                BeanPropertyRowMapper.newInstance(PetType.class));
+                JdbcPetTypeRowMapper.INSTANCE);
         } catch (EmptyResultDataAccessException ex) {
             throw new ObjectRetrievalFailureException(PetType.class, name);
         }
@@ -95,10 +92,10 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
     @Override
 	public Collection<PetType> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
+        return this.scanJdbcTemplate.query(
             "SELECT id, name FROM types",
             params,
-            BeanPropertyRowMapper.newInstance(PetType.class));
+            JdbcPetTypeRowMapper.INSTANCE);
 	}
 
 	@Override
@@ -117,26 +114,21 @@ public class JdbcPetTypeRepositoryImpl implements PetTypeRepository {
 	public void delete(PetType petType) throws DataAccessException {
 		Map<String, Object> pettype_params = new HashMap<>();
 		pettype_params.put("id", petType.getId());
-		List<Pet> pets = new ArrayList<Pet>();
-		pets = this.namedParameterJdbcTemplate.
-    			query("SELECT pets.id, name, birth_date, type_id, owner_id FROM pets WHERE type_id=:id",
-    			pettype_params,
-    			BeanPropertyRowMapper.newInstance(Pet.class));
+		List<Integer> petIds = this.namedParameterJdbcTemplate.queryForList(
+			"SELECT id FROM pets WHERE type_id=:id", pettype_params, Integer.class);
 		// cascade delete pets
-		for (Pet pet : pets){
+		for (Integer petId : petIds){
 			Map<String, Object> pet_params = new HashMap<>();
-			pet_params.put("id", pet.getId());
-			List<Visit> visits = new ArrayList<Visit>();
-			visits = this.namedParameterJdbcTemplate.query(
-		            "SELECT id, pet_id, visit_date, description FROM visits WHERE pet_id = :id",
-		            pet_params,
-		            BeanPropertyRowMapper.newInstance(Visit.class));
+			pet_params.put("id", petId);
+			List<Integer> visitIds = this.namedParameterJdbcTemplate.queryForList(
+				"SELECT id FROM visits WHERE pet_id = :id", pet_params, Integer.class);
 	        // cascade delete visits
-	        for (Visit visit : visits){
+	        for (Integer visitId : visitIds){
 	        	Map<String, Object> visit_params = new HashMap<>();
-	        	visit_params.put("id", visit.getId());
+	        	visit_params.put("id", visitId);
 	        	this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id=:id", visit_params);
 	        }
+	        this.namedParameterJdbcTemplate.update("DELETE FROM visits_archive WHERE pet_id=:id", pet_params);
 	        this.namedParameterJdbcTemplate.update("DELETE FROM pets WHERE id=:id", pet_params);
         }
         this.namedParameterJdbcTemplate.update("DELETE FROM types WHERE id=:id", pettype_params);
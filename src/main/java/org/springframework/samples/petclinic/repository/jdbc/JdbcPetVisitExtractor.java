@@ -29,8 +29,52 @@ import java.sql.SQLException;
 public class JdbcPetVisitExtractor extends
     OneToManyResultSetExtractor<JdbcPet, Visit, Integer> {
 
+    /**
+     * Condition of the join of <code>pets</code> and <code>visits</code> keeping the <code>:visit_limit</code> most
+     * recent visits of each pet: those with fewer than <code>:visit_limit</code> visits of the pet on a later date, or
+     * on the same date with a greater id, the visit itself included. Each visit is an index range scan of
+     * <code>(pet_id, visit_date, id)</code> that stops at <code>:visit_limit</code> rows, whatever the number of
+     * visits of the pet. Same as the {@link org.springframework.samples.petclinic.model.Pet#RECENT_VISITS} filter of
+     * the JPA profiles.
+     */
+    static final String RECENT_VISITS = "NOT EXISTS (SELECT 1 FROM visits newer WHERE newer.pet_id = visits.pet_id " +
+        "AND (newer.visit_date > visits.visit_date OR newer.visit_date = visits.visit_date AND newer.id >= visits.id) " +
+        "LIMIT 1 OFFSET :visit_limit)";
+
+    /**
+     * The <code>visit_count</code> column mapped by {@link JdbcPetRowMapper#WITH_VISIT_COUNT}, all the visits of the
+     * pet and not only the recent ones.
+     */
+    static final String VISIT_COUNT = "(SELECT COUNT(*) FROM visits counted WHERE counted.pet_id = pets.id) as visit_count";
+
+    /**
+     * @param where the condition on the <code>pets</code>, <code>owner_id=:id</code>
+     * @return the query of the pets and all their visits, ordered by pet
+     */
+    static String petsAndVisits(String where) {
+        return "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, visits.id as visit_id, visit_date, " +
+            "description, visits.pet_id as visits_pet_id FROM pets LEFT OUTER JOIN visits ON pets.id = visits.pet_id " +
+            "WHERE " + where + " ORDER BY pets.id";
+    }
+
+    /**
+     * @param where the condition on the <code>pets</code>, <code>owner_id=:id</code>
+     * @return the query of the pets, their visit count and their <code>:visit_limit</code> most recent visits, ordered
+     * by pet, to extract with {@link JdbcPetRowMapper#WITH_VISIT_COUNT}
+     */
+    static String petsAndRecentVisits(String where) {
+        return "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id, " + VISIT_COUNT +
+            ", visits.id as visit_id, visit_date, description, visits.pet_id as visits_pet_id FROM pets " +
+            "LEFT OUTER JOIN visits ON pets.id = visits.pet_id AND " + RECENT_VISITS +
+            " WHERE " + where + " ORDER BY pets.id";
+    }
+
     public JdbcPetVisitExtractor() {
-        super(new JdbcPetRowMapper(), new JdbcVisitRowMapper());
+        this(JdbcPetRowMapper.INSTANCE);
+    }
+
+    JdbcPetVisitExtractor(JdbcPetRowMapper petRowMapper) {
+        super(petRowMapper, JdbcVisitRowMapper.INSTANCE);
     }
 
     @Override
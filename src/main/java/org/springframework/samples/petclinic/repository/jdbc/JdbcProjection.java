@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * Loads entities of a table with only some of their properties, selecting just the columns holding them.
+ * <p>
+ * The entities are built from the id and the selected columns, each set by the {@link Column} of its property, which
+ * may set a property nested in a to-one association, <code>owner.id</code>; their other properties and collections
+ * are left empty. As with the row mappers, the columns are read by index and set without reflection.
+ */
+class JdbcProjection<T extends BaseEntity> {
+
+    private final Supplier<T> factory;
+
+    private final String table;
+
+    private final Map<String, Column<T>> columns;
+
+    /**
+     * @param columns the properties that can be loaded, mapped to the column holding them and to their setter
+     */
+    JdbcProjection(Supplier<T> factory, String table, Map<String, Column<T>> columns) {
+        this.factory = factory;
+        this.table = table;
+        this.columns = columns;
+    }
+
+    /**
+     * @param sql    the column or the SQL expression holding the property
+     * @param setter sets the property from the value at the given index of the current row
+     */
+    static <T> Column<T> column(String sql, ColumnSetter<T> setter) {
+        return new Column<>(sql, setter);
+    }
+
+    /**
+     * @param properties the properties to load along with the id
+     * @param clauses    the SQL following <code>FROM table</code>, <code>WHERE last_name LIKE :lastName</code>, or an
+     *                   empty string
+     */
+    List<T> query(NamedParameterJdbcTemplate template, Set<String> properties, String clauses, Map<String, ?> params) {
+        List<Column<T>> selected = properties.stream()
+            .filter(property -> !property.equals("id"))
+            .map(property -> {
+                Column<T> column = this.columns.get(property);
+                if (column == null) {
+                    throw new IllegalArgumentException("No column holds the " + property + " of " + this.table);
+                }
+                return column;
+            })
+            .toList();
+        StringBuilder sql = new StringBuilder("SELECT ").append(this.table).append(".id");
+        for (Column<T> column : selected) {
+            sql.append(", ").append(column.sql());
+        }
+        sql.append(" FROM ").append(this.table);
+        if (!clauses.isEmpty()) {
+            sql.append(' ').append(clauses);
+        }
+        return template.query(sql.toString(), params, (rs, rowNum) -> {
+            T entity = this.factory.get();
+            entity.setId(rs.getInt(1));
+            for (int i = 0; i < selected.size(); i++) {
+                selected.get(i).setter().set(entity, rs, i + 2);
+            }
+            return entity;
+        });
+    }
+
+    /**
+     * Loads the entities with the given ids, like {@link #query}, with one query per chunk of ids.
+     *
+     * @return the entities found, in the order of the ids
+     */
+    List<T> queryByIds(NamedParameterJdbcTemplate template, Set<String> properties, Collection<Integer> ids) {
+        List<T> entities = new ArrayList<>();
+        for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+            entities.addAll(query(template, properties, "WHERE " + this.table + ".id IN (:ids)", Map.of("ids", chunk)));
+        }
+        return EntityUtils.orderByIds(entities, ids);
+    }
+
+    /**
+     * A column, or SQL expression, holding a property, with the setter of the property.
+     */
+    record Column<T>(String sql, ColumnSetter<T> setter) {
+    }
+
+    @FunctionalInterface
+    interface ColumnSetter<T> {
+
+        void set(T entity, ResultSet rs, int index) throws SQLException;
+
+    }
+
+}
@@ -17,18 +17,20 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
 import java.util.*;
+import java.util.Optional;
 
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.repository.SpecialtyRepository;
 import org.springframework.stereotype.Repository;
@@ -44,30 +46,28 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
 
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+	private NamedParameterJdbcTemplate scanJdbcTemplate;
+
 	private SimpleJdbcInsert insertSpecialty;
 
 	@Autowired
-	public JdbcSpecialtyRepositoryImpl(DataSource dataSource) {
-		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-		this.insertSpecialty = new SimpleJdbcInsert(dataSource)
+	public JdbcSpecialtyRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+			@Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate) {
+		this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+		this.scanJdbcTemplate = scanJdbcTemplate;
+		this.insertSpecialty = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate())
 	            .withTableName("specialties")
 	            .usingGeneratedKeyColumns("id");
 	}
 
 	@Override
-	public Specialty findById(int id) {
-		Specialty specialty;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            specialty = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id, name FROM specialties WHERE id= :id",
-                params,
-                BeanPropertyRowMapper.newInstance(Specialty.class));
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Specialty.class, id);
-        }
-        return specialty;
+	public Optional<Specialty> findById(int id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return DataAccessUtils.optionalResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id, name FROM specialties WHERE id= :id",
+            params,
+            JdbcSpecialtyRowMapper.INSTANCE));
 	}
 
     @Override
@@ -80,7 +80,7 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
             specialties = this.namedParameterJdbcTemplate.query(
                 sql,
                 params,
-                new BeanPropertyRowMapper<>(Specialty.class));
+                JdbcSpecialtyRowMapper.INSTANCE);
         } catch (EmptyResultDataAccessException ex){
             throw new ObjectRetrievalFailureException(Specialty.class, names);
         }
@@ -91,10 +91,10 @@ public class JdbcSpecialtyRepositoryImpl implements SpecialtyRepository {
     @Override
 	public Collection<Specialty> findAll() throws DataAccessException {
 		Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
+        return this.scanJdbcTemplate.query(
             "SELECT id, name FROM specialties",
             params,
-            BeanPropertyRowMapper.newInstance(Specialty.class));
+            JdbcSpecialtyRowMapper.INSTANCE);
 	}
 
 	@Override
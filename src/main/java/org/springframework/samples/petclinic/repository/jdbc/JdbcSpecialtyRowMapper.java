@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.Specialty;
+
+/**
+ * {@link RowMapper} implementation mapping the columns <code>id, name</code>, in that order, to a new
+ * {@link Specialty}. The mapper is stateless and shared through {@link #INSTANCE}.
+ */
+class JdbcSpecialtyRowMapper implements RowMapper<Specialty> {
+
+    static final JdbcSpecialtyRowMapper INSTANCE = new JdbcSpecialtyRowMapper();
+
+    @Override
+    public Specialty mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Specialty specialty = new Specialty();
+        specialty.setId(rs.getInt(1));
+        specialty.setName(rs.getString(2));
+        return specialty;
+    }
+}
@@ -1,17 +1,19 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.samples.petclinic.model.Role;
 import org.springframework.samples.petclinic.model.User;
@@ -22,47 +24,80 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcUserRepositoryImpl implements UserRepository {
 
+    /**
+     * Inserts or updates a user in one statement, in the dialect of the <code>database</code> property.
+     */
+    private static final Map<String, String> UPSERT_USER = Map.of(
+        "hsqldb", "MERGE INTO users USING (VALUES (CAST(:username AS VARCHAR(20)), CAST(:password AS VARCHAR(20)), " +
+            "CAST(:enabled AS BOOLEAN))) AS vals(username, password, enabled) ON users.username = vals.username " +
+            "WHEN MATCHED THEN UPDATE SET users.password = vals.password, users.enabled = vals.enabled " +
+            "WHEN NOT MATCHED THEN INSERT (username, password, enabled) VALUES (vals.username, vals.password, vals.enabled)",
+        "mysql", "INSERT INTO users (username, password, enabled) VALUES (:username, :password, :enabled) AS vals " +
+            "ON DUPLICATE KEY UPDATE password = vals.password, enabled = vals.enabled",
+        "postgres", "INSERT INTO users (username, password, enabled) VALUES (:username, :password, :enabled) " +
+            "ON CONFLICT (username) DO UPDATE SET password = EXCLUDED.password, enabled = EXCLUDED.enabled");
+
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private SimpleJdbcInsert insertUser;
+    private String upsertUser;
 
     @Autowired
-    public JdbcUserRepositoryImpl(DataSource dataSource) {
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        this.insertUser = new SimpleJdbcInsert(dataSource).withTableName("users");
+    public JdbcUserRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                  @Value("${database:}") String database) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.insertUser = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate()).withTableName("users");
+        this.upsertUser = UPSERT_USER.get(database);
     }
 
+    /**
+     * Three statements whether the user is new or not: the upsert, then the role statements of
+     * {@link #updateUserRoles(User)}. Databases without an upsert update, then insert if no row was updated.
+     * <p>
+     * The role statements are not skipped for unchanged roles: the saved user is built from the request, so its stored
+     * roles are unknown, and reading them would take a fourth statement whenever they changed, which they always do
+     * for the new users the REST API creates.
+     */
     @Override
     public void save(User user) throws DataAccessException {
 
         BeanPropertySqlParameterSource parameterSource = new BeanPropertySqlParameterSource(user);
 
-        try {
-            getByUsername(user.getUsername());
-            this.namedParameterJdbcTemplate.update("UPDATE users SET password=:password, enabled=:enabled WHERE username=:username", parameterSource);
-        } catch (EmptyResultDataAccessException e) {
+        if (this.upsertUser != null) {
+            this.namedParameterJdbcTemplate.update(this.upsertUser, parameterSource);
+        } else if (this.namedParameterJdbcTemplate.update("UPDATE users SET password=:password, enabled=:enabled WHERE username=:username", parameterSource) == 0) {
             this.insertUser.execute(parameterSource);
-        } finally {
-            updateUserRoles(user);
         }
+        updateUserRoles(user);
     }
 
-    private User getByUsername(String username) {
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("username", username);
-        return this.namedParameterJdbcTemplate.queryForObject("SELECT * FROM users WHERE username=:username",
-            params, BeanPropertyRowMapper.newInstance(User.class));
-    }
-
+    /**
+     * Replace the roles of the user without reading them first: one statement deletes the revoked roles, and one
+     * batch inserts the granted roles the user does not have yet. Selecting the values from the user row, whose
+     * username is the primary key, keeps the conditional insert portable across databases.
+     */
     private void updateUserRoles(User user) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("username", user.getUsername());
-        this.namedParameterJdbcTemplate.update("DELETE FROM roles WHERE username=:username", params);
+        Set<String> wanted = new LinkedHashSet<>();
         for (Role role : user.getRoles()) {
-            params.put("role", role.getName());
             if (role.getName() != null) {
-                this.namedParameterJdbcTemplate.update("INSERT INTO roles(username, role) VALUES (:username, :role)", params);
+                wanted.add(role.getName());
             }
         }
+        MapSqlParameterSource params = new MapSqlParameterSource("username", user.getUsername());
+        if (wanted.isEmpty()) {
+            this.namedParameterJdbcTemplate.update("DELETE FROM roles WHERE username=:username", params);
+            return;
+        }
+        this.namedParameterJdbcTemplate.update("DELETE FROM roles WHERE username=:username AND role NOT IN (:roles)",
+            params.addValue("roles", wanted));
+        this.namedParameterJdbcTemplate.batchUpdate("INSERT INTO roles(username, role) " +
+                "SELECT username, :role FROM users WHERE username=:username " +
+                "AND NOT EXISTS (SELECT 1 FROM roles WHERE username=:username AND role=:role)",
+            roleParams(user, List.copyOf(wanted)));
+    }
+
+    private static SqlParameterSource[] roleParams(User user, List<String> roles) {
+        return roles.stream()
+            .map(role -> new MapSqlParameterSource("username", user.getUsername()).addValue("role", role))
+            .toArray(SqlParameterSource[]::new);
     }
 }
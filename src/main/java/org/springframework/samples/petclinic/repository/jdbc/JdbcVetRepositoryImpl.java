@@ -15,26 +15,29 @@
  */
 package org.springframework.samples.petclinic.repository.jdbc;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
-import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
@@ -57,15 +60,20 @@ import org.springframework.stereotype.Repository;
 @Profile("jdbc")
 public class JdbcVetRepositoryImpl implements VetRepository {
 
-    private JdbcTemplate jdbcTemplate;
+	private static final JdbcProjection<Vet> PROJECTION = new JdbcProjection<>(Vet::new, "vets", Map.of(
+		"firstName", JdbcProjection.column("first_name", (vet, rs, i) -> vet.setFirstName(rs.getString(i))),
+		"lastName", JdbcProjection.column("last_name", (vet, rs, i) -> vet.setLastName(rs.getString(i)))));
+
 	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+	private NamedParameterJdbcTemplate scanJdbcTemplate;
 	private SimpleJdbcInsert insertVet;
 
     @Autowired
-    public JdbcVetRepositoryImpl(DataSource dataSource, JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
-		this.insertVet = new SimpleJdbcInsert(dataSource).withTableName("vets").usingGeneratedKeyColumns("id");
-		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    public JdbcVetRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 @Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate) {
+		this.insertVet = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate()).withTableName("vets").usingGeneratedKeyColumns("id");
+		this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+		this.scanJdbcTemplate = scanJdbcTemplate;
     }
 
     /**
@@ -75,66 +83,89 @@ public class JdbcVetRepositoryImpl implements VetRepository {
     public Collection<Vet> findAll() throws DataAccessException {
         List<Vet> vets = new ArrayList<>();
         // Retrieve the list of all vets.
-        vets.addAll(this.jdbcTemplate.query(
+        vets.addAll(this.scanJdbcTemplate.getJdbcOperations().query(
             "SELECT id, first_name, last_name FROM vets ORDER BY last_name,first_name",
-            BeanPropertyRowMapper.newInstance(Vet.class)));
-
-        // Retrieve the list of all possible specialties.
-        final List<Specialty> specialties = this.jdbcTemplate.query(
-            "SELECT id, name FROM specialties",
-            BeanPropertyRowMapper.newInstance(Specialty.class));
+            JdbcVetRowMapper.INSTANCE));
 
-        // Build each vet's list of specialties.
+        // Retrieve the specialties of all vets in one query rather than one query per vet.
+        Map<Integer, Vet> vetsById = new HashMap<>();
         for (Vet vet : vets) {
-            final List<Integer> vetSpecialtiesIds = this.jdbcTemplate.query(
-                "SELECT specialty_id FROM vet_specialties WHERE vet_id=?",
-                new BeanPropertyRowMapper<Integer>() {
-                    @Override
-                    public Integer mapRow(ResultSet rs, int row) throws SQLException {
-                        return rs.getInt(1);
-                    }
-                },
-                vet.getId());
-            for (int specialtyId : vetSpecialtiesIds) {
-                Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-                vet.addSpecialty(specialty);
-            }
+            vetsById.put(vet.getId(), vet);
         }
+        this.scanJdbcTemplate.getJdbcOperations().query(
+            "SELECT vet_specialties.vet_id, specialties.id, specialties.name FROM vet_specialties " +
+                "INNER JOIN specialties ON vet_specialties.specialty_id = specialties.id",
+            rs -> {
+                Vet vet = vetsById.get(rs.getInt("vet_id"));
+                if (vet != null) {
+                    Specialty specialty = new Specialty();
+                    specialty.setId(rs.getInt("id"));
+                    specialty.setName(rs.getString("name"));
+                    vet.addSpecialty(specialty);
+                }
+            });
         return vets;
     }
     
 	@Override
-	public Vet findById(int id) throws DataAccessException {
-		Vet vet;
-		try {
-			Map<String, Object> vet_params = new HashMap<>();
-			vet_params.put("id", id);
-			vet = this.namedParameterJdbcTemplate.queryForObject(
-					"SELECT id, first_name, last_name FROM vets WHERE id= :id",
-					vet_params,
-					BeanPropertyRowMapper.newInstance(Vet.class));
-
-			final List<Specialty> specialties = this.namedParameterJdbcTemplate.query(
-					"SELECT id, name FROM specialties", vet_params, BeanPropertyRowMapper.newInstance(Specialty.class));
-
-			final List<Integer> vetSpecialtiesIds = this.namedParameterJdbcTemplate.query(
-					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
-					vet_params,
-					new BeanPropertyRowMapper<Integer>() {
-						@Override
-						public Integer mapRow(ResultSet rs, int row) throws SQLException {
-							return rs.getInt(1);
-						}
-					});
-			for (int specialtyId : vetSpecialtiesIds) {
-				Specialty specialty = EntityUtils.getById(specialties, Specialty.class, specialtyId);
-				vet.addSpecialty(specialty);
-			}
+	public Optional<Vet> findById(int id) throws DataAccessException {
+		Map<String, Object> vet_params = new HashMap<>();
+		vet_params.put("id", id);
+		Optional<Vet> vet = DataAccessUtils.optionalResult(this.namedParameterJdbcTemplate.query(
+				"SELECT id, first_name, last_name FROM vets WHERE id= :id",
+				vet_params,
+				JdbcVetRowMapper.INSTANCE));
+		vet.ifPresent(found -> this.namedParameterJdbcTemplate.query(
+				"SELECT specialties.id, specialties.name FROM vet_specialties " +
+					"INNER JOIN specialties ON vet_specialties.specialty_id = specialties.id WHERE vet_specialties.vet_id=:id",
+				vet_params,
+				JdbcSpecialtyRowMapper.INSTANCE)
+			.forEach(found::addSpecialty));
+		return vet;
+	}
 
-		} catch (EmptyResultDataAccessException ex) {
-			throw new ObjectRetrievalFailureException(Vet.class, id);
+	/**
+	 * Loads the vets with the given ids, then their specialties, with one query per chunk of ids.
+	 */
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids) throws DataAccessException {
+		Map<Integer, Vet> vetsById = new HashMap<>();
+		for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+			this.namedParameterJdbcTemplate.query(
+				"SELECT id, first_name, last_name FROM vets WHERE id IN (:ids)",
+				Map.of("ids", chunk),
+				JdbcVetRowMapper.INSTANCE
+			).forEach(vet -> vetsById.put(vet.getId(), vet));
 		}
-		return vet;
+		for (List<Integer> chunk : EntityUtils.chunk(vetsById.keySet(), EntityUtils.IN_CHUNK_SIZE)) {
+			this.namedParameterJdbcTemplate.query(
+				"SELECT vet_specialties.vet_id, specialties.id, specialties.name FROM vet_specialties " +
+					"INNER JOIN specialties ON vet_specialties.specialty_id = specialties.id WHERE vet_specialties.vet_id IN (:ids)",
+				Map.of("ids", chunk),
+				rs -> {
+					Specialty specialty = new Specialty();
+					specialty.setId(rs.getInt("id"));
+					specialty.setName(rs.getString("name"));
+					vetsById.get(rs.getInt("vet_id")).addSpecialty(specialty);
+				});
+		}
+		return EntityUtils.orderByIds(vetsById.values(), ids);
+	}
+
+	@Override
+	public Collection<Vet> findAll(Set<String> properties) throws DataAccessException {
+		return PROJECTION.query(this.scanJdbcTemplate, properties, "ORDER BY last_name,first_name", Map.of());
+	}
+
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+		return PROJECTION.queryByIds(this.namedParameterJdbcTemplate, properties, ids);
+	}
+
+	@Override
+	public Optional<Vet> findById(int id, Set<String> properties) throws DataAccessException {
+		return DataAccessUtils.optionalResult(
+			PROJECTION.query(this.namedParameterJdbcTemplate, properties, "WHERE id= :id", Map.of("id", id)));
 	}
 
 	@Override
@@ -143,11 +174,11 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 		if (vet.isNew()) {
 			Number newKey = this.insertVet.executeAndReturnKey(parameterSource);
 			vet.setId(newKey.intValue());
-			updateVetSpecialties(vet);
+			updateVetSpecialties(vet, true);
 		} else {
 			this.namedParameterJdbcTemplate
 					.update("UPDATE vets SET first_name=:firstName, last_name=:lastName WHERE id=:id", parameterSource);
-			updateVetSpecialties(vet);
+			updateVetSpecialties(vet, false);
 		}
 	}
 
@@ -159,16 +190,34 @@ public class JdbcVetRepositoryImpl implements VetRepository {
 		this.namedParameterJdbcTemplate.update("DELETE FROM vets WHERE id=:id", params);
 	}
 	
-	private void updateVetSpecialties(Vet vet) throws DataAccessException {
-		Map<String, Object> params = new HashMap<>();
-		params.put("id", vet.getId());
-		this.namedParameterJdbcTemplate.update("DELETE FROM vet_specialties WHERE vet_id=:id", params);
+	/**
+	 * Replace the specialties of the vet by writing only the pairs that changed: removed specialties are deleted and
+	 * added ones inserted, each in a single batch.
+	 */
+	private void updateVetSpecialties(Vet vet, boolean created) throws DataAccessException {
+		Set<Integer> current = new HashSet<>();
+		if (!created) {
+			current.addAll(this.namedParameterJdbcTemplate.queryForList(
+					"SELECT specialty_id FROM vet_specialties WHERE vet_id=:id",
+					Collections.singletonMap("id", vet.getId()),
+					Integer.class));
+		}
+		Set<Integer> wanted = new LinkedHashSet<>();
 		for (Specialty spec : vet.getSpecialties()) {
-			params.put("spec_id", spec.getId());
-			if(!(spec.getId() == null)) {
-				this.namedParameterJdbcTemplate.update("INSERT INTO vet_specialties VALUES (:id, :spec_id)", params);
+			if (spec.getId() != null) {
+				wanted.add(spec.getId());
 			}
 		}
+		this.namedParameterJdbcTemplate.batchUpdate("DELETE FROM vet_specialties WHERE vet_id=:id AND specialty_id=:spec_id",
+				vetSpecialtyParams(vet, current.stream().filter(id -> !wanted.contains(id)).toList()));
+		this.namedParameterJdbcTemplate.batchUpdate("INSERT INTO vet_specialties VALUES (:id, :spec_id)",
+				vetSpecialtyParams(vet, wanted.stream().filter(id -> !current.contains(id)).toList()));
+	}
+
+	private static SqlParameterSource[] vetSpecialtyParams(Vet vet, List<Integer> specialtyIds) {
+		return specialtyIds.stream()
+				.map(specialtyId -> new MapSqlParameterSource("id", vet.getId()).addValue("spec_id", specialtyId))
+				.toArray(SqlParameterSource[]::new);
 	}
 
 }
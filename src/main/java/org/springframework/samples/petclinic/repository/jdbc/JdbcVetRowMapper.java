@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.Vet;
+
+/**
+ * {@link RowMapper} implementation mapping the columns <code>id, first_name, last_name</code>, in that order, to a new
+ * {@link Vet}. The mapper is stateless and shared through {@link #INSTANCE}.
+ */
+class JdbcVetRowMapper implements RowMapper<Vet> {
+
+    static final JdbcVetRowMapper INSTANCE = new JdbcVetRowMapper();
+
+    @Override
+    public Vet mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Vet vet = new Vet();
+        vet.setId(rs.getInt(1));
+        vet.setFirstName(rs.getString(2));
+        vet.setLastName(rs.getString(3));
+        return vet;
+    }
+}
@@ -16,25 +16,26 @@
 package org.springframework.samples.petclinic.repository.jdbc;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
-import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.samples.petclinic.config.JdbcConfig;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 import org.springframework.stereotype.Repository;
 
-import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.Optional;
 
 /**
  * A simple JDBC-based implementation of the {@link VisitRepository} interface.
@@ -55,11 +56,15 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
     protected SimpleJdbcInsert insertVisit;
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    private NamedParameterJdbcTemplate scanJdbcTemplate;
+
     @Autowired
-    public JdbcVisitRepositoryImpl(DataSource dataSource) {
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    public JdbcVisitRepositoryImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                   @Qualifier(JdbcConfig.SCAN_TEMPLATE) NamedParameterJdbcTemplate scanJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.scanJdbcTemplate = scanJdbcTemplate;
 
-        this.insertVisit = new SimpleJdbcInsert(dataSource)
+        this.insertVisit = new SimpleJdbcInsert(namedParameterJdbcTemplate.getJdbcTemplate())
             .withTableName("visits")
             .usingGeneratedKeyColumns("id");
     }
@@ -83,11 +88,11 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
         JdbcPet pet = this.namedParameterJdbcTemplate.queryForObject(
             "SELECT id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE id=:id",
             params,
-            new JdbcPetRowMapper());
+            JdbcPetRowMapper.INSTANCE);
 
         List<Visit> visits = this.namedParameterJdbcTemplate.query(
             "SELECT id as visit_id, visit_date, description FROM visits WHERE pet_id=:id",
-            params, new JdbcVisitRowMapper());
+            params, JdbcVisitRowMapper.INSTANCE);
 
         for (Visit visit : visits) {
             visit.setPet(pet);
@@ -97,29 +102,124 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
     }
 
     @Override
-    public Visit findById(int id) throws DataAccessException {
-        Visit visit;
-        try {
-            Map<String, Object> params = new HashMap<>();
-            params.put("id", id);
-            visit = this.namedParameterJdbcTemplate.queryForObject(
-                "SELECT id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
-                params,
-                new JdbcVisitRowMapperExt());
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ObjectRetrievalFailureException(Visit.class, id);
-        }
-        return visit;
+    public Optional<Visit> findById(int id) throws DataAccessException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        return DataAccessUtils.optionalResult(this.namedParameterJdbcTemplate.query(
+            "SELECT id as visit_id, visits.pet_id as pets_id, visit_date, description FROM visits WHERE id= :id",
+            params,
+            new JdbcVisitRowMapperExt()));
     }
 
     @Override
     public Collection<Visit> findAll() throws DataAccessException {
         Map<String, Object> params = new HashMap<>();
-        return this.namedParameterJdbcTemplate.query(
+        return this.scanJdbcTemplate.query(
             "SELECT id as visit_id, pets.id as pets_id, visit_date, description FROM visits LEFT JOIN pets ON visits.pet_id = pets.id",
             params, new JdbcVisitRowMapperExt());
     }
 
+    @Override
+    public List<Visit> findByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit)
+        throws DataAccessException {
+        return findByDateRange(null, from, to, afterDate, afterId, limit);
+    }
+
+    @Override
+    public List<Visit> findByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                               Integer afterId, int limit) throws DataAccessException {
+        return findByDateRange(petId, from, to, afterDate, afterId, limit);
+    }
+
+    private List<Visit> findByDateRange(Integer petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                        Integer afterId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        if (petId != null) {
+            where.add("visits.pet_id = :pet_id");
+            params.addValue("pet_id", petId);
+        }
+        addDateRange(where, params, "visits.id", from, to, afterDate, afterId);
+        Map<Integer, JdbcPet> pets = new HashMap<>();
+        return this.namedParameterJdbcTemplate.query(
+            "SELECT visits.id as visit_id, visit_date, description, pets.id as pets_id, name, birth_date, type_id, owner_id " +
+                "FROM visits JOIN pets ON pets.id = visits.pet_id" + where +
+                " ORDER BY visit_date, visits.id LIMIT :limit",
+            params,
+            (rs, row) -> {
+                Visit visit = JdbcVisitRowMapper.INSTANCE.mapRow(rs, row);
+                JdbcPet pet = pets.get(rs.getInt("pets_id"));
+                if (pet == null) {
+                    pet = JdbcPetRowMapper.INSTANCE.mapRow(rs, row);
+                    pets.put(pet.getId(), pet);
+                }
+                visit.setPet(pet);
+                return visit;
+            });
+    }
+
+    /**
+     * Adds the conditions of a page of visits between two dates, ordered by date and id.
+     */
+    private static void addDateRange(StringJoiner where, MapSqlParameterSource params, String idColumn,
+                                     LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId) {
+        if (from != null) {
+            where.add("visit_date >= :from");
+            params.addValue("from", from);
+        }
+        if (to != null) {
+            where.add("visit_date <= :to");
+            params.addValue("to", to);
+        }
+        if (afterDate != null) {
+            where.add("(visit_date > :after_date OR (visit_date = :after_date AND " + idColumn + " > :after_id))");
+            params.addValue("after_date", afterDate).addValue("after_id", afterId != null ? afterId : 0);
+        }
+    }
+
+    @Override
+    public List<Visit> findHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                          Integer afterId, int limit) throws DataAccessException {
+        MapSqlParameterSource params = new MapSqlParameterSource("pet_id", petId).addValue("limit", limit);
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+        where.add("pet_id = :pet_id");
+        addDateRange(where, params, "id", from, to, afterDate, afterId);
+        // the conditions are repeated in both branches so that each is a range scan of its (pet_id, visit_date, id) index
+        List<Visit> visits = this.namedParameterJdbcTemplate.query(
+            "SELECT id as visit_id, visit_date, description FROM visits" + where +
+                " UNION ALL SELECT id as visit_id, visit_date, description FROM visits_archive" + where +
+                " ORDER BY visit_date, visit_id LIMIT :limit",
+            params, JdbcVisitRowMapper.INSTANCE);
+        if (!visits.isEmpty()) {
+            JdbcPet pet = this.namedParameterJdbcTemplate.queryForObject(
+                "SELECT id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE id=:pet_id",
+                params, JdbcPetRowMapper.INSTANCE);
+            for (Visit visit : visits) {
+                visit.setPet(pet);
+            }
+        }
+        return visits;
+    }
+
+    @Override
+    public int archive(LocalDate before, int limit) throws DataAccessException {
+        MapSqlParameterSource params = new MapSqlParameterSource("before", before).addValue("limit", limit);
+        // the batch is locked, so that it is not changed between its copy and its deletion
+        List<Integer> ids = this.namedParameterJdbcTemplate.queryForList(
+            "SELECT id FROM visits WHERE visit_date < :before ORDER BY visit_date, id LIMIT :limit FOR UPDATE",
+            params, Integer.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        params.addValue("ids", ids);
+        this.namedParameterJdbcTemplate.update(
+            "INSERT INTO visits_archive (id, pet_id, visit_date, description) " +
+                "SELECT id, pet_id, visit_date, description FROM visits WHERE id IN (:ids) AND visit_date < :before",
+            params);
+        return this.namedParameterJdbcTemplate.update("DELETE FROM visits WHERE id IN (:ids) AND visit_date < :before",
+            params);
+    }
+
     @Override
     public void save(Visit visit) throws DataAccessException {
         if (visit.isNew()) {
@@ -156,18 +256,18 @@ public class JdbcVisitRepositoryImpl implements VisitRepository {
             pet = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
                 "SELECT pets.id as pets_id, name, birth_date, type_id, owner_id FROM pets WHERE pets.id=:id",
                 params,
-                new JdbcPetRowMapper());
+                JdbcPetRowMapper.INSTANCE);
             params.put("type_id", pet.getTypeId());
             petType = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
                 "SELECT id, name FROM types WHERE id= :type_id",
                 params,
-                BeanPropertyRowMapper.newInstance(PetType.class));
+                JdbcPetTypeRowMapper.INSTANCE);
             pet.setType(petType);
             params.put("owner_id", pet.getOwnerId());
             owner = JdbcVisitRepositoryImpl.this.namedParameterJdbcTemplate.queryForObject(
                 "SELECT id, first_name, last_name, address, city, telephone FROM owners WHERE id= :owner_id",
                 params,
-                BeanPropertyRowMapper.newInstance(Owner.class));
+                JdbcOwnerRowMapper.INSTANCE);
             pet.setOwner(owner);
             visit.setPet(pet);
             return visit;
@@ -22,7 +22,6 @@ import org.springframework.samples.petclinic.model.Visit;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.Date;
 
 /**
  * {@link RowMapper} implementation mapping data from a {@link ResultSet} to the corresponding properties
@@ -30,6 +29,8 @@ import java.util.Date;
  */
 class JdbcVisitRowMapper implements RowMapper<Visit> {
 
+    static final JdbcVisitRowMapper INSTANCE = new JdbcVisitRowMapper();
+
     @Override
     public Visit mapRow(ResultSet rs, int row) throws SQLException {
         Visit visit = new Visit();
@@ -15,17 +15,26 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.orm.hibernate5.support.OpenSessionInViewFilter;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.util.EntityProjection;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.RecentVisitsFilter;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -62,12 +71,56 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
     }
 
     @Override
-    public Owner findById(int id) {
+    public Optional<Owner> findById(int id) {
         // using 'join fetch' because a single query should load both owners and pets
         // using 'left join fetch' because it might happen that an owner does not have pets yet
-        Query query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id");
+        TypedQuery<Owner> query = this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id", Owner.class);
         query.setParameter("id", id);
-        return (Owner) query.getSingleResult();
+        // getResultList rather than getSingleResult, which throws NoResultException for unknown ids
+        return query.getResultList().stream().findFirst();
+    }
+
+    @Override
+    public Optional<Owner> findById(int id, int visitLimit) {
+        return RecentVisitsFilter.load(this.em, visitLimit, () -> findById(id));
+    }
+
+    @Override
+    public Collection<Owner> findByLastName(String lastName, int visitLimit) {
+        return RecentVisitsFilter.load(this.em, visitLimit, () -> findByLastName(lastName));
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids) {
+        List<Owner> owners = new ArrayList<>();
+        for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+            owners.addAll(this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.visits WHERE owner.id IN :ids", Owner.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+        }
+        return EntityUtils.orderByIds(owners, ids);
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids, int visitLimit) {
+        return RecentVisitsFilter.load(this.em, visitLimit, () -> findByIds(ids));
+    }
+
+    @Override
+    public List<Owner> findByIds(Collection<Integer> ids, Set<String> properties) {
+        return EntityProjection.loadByIds(this.em, Owner.class, properties, ids);
+    }
+
+    @Override
+    public Optional<Owner> findById(int id, Set<String> properties) {
+        return EntityProjection.load(this.em, Owner.class, properties, "WHERE owner.id = :id", Map.of("id", id))
+            .stream().findFirst();
+    }
+
+    @Override
+    public Collection<Owner> findByLastName(String lastName, Set<String> properties) {
+        return EntityProjection.load(this.em, Owner.class, properties, "WHERE owner.lastName LIKE :lastName",
+            Map.of("lastName", lastName + "%"));
     }
 
 
@@ -88,8 +141,21 @@ public class JpaOwnerRepositoryImpl implements OwnerRepository {
         return query.getResultList();
 	}
 
+	@Override
+	public Collection<Owner> findAll(int visitLimit) throws DataAccessException {
+		return RecentVisitsFilter.load(this.em, visitLimit, this::findAll);
+	}
+
+	@Override
+	public Collection<Owner> findAll(Set<String> properties) throws DataAccessException {
+		return EntityProjection.load(this.em, Owner.class, properties, "", Map.of());
+	}
+
 	@Override
 	public void delete(Owner owner) throws DataAccessException {
+		this.em.createNativeQuery("DELETE FROM visits_archive WHERE pet_id IN (SELECT id FROM pets WHERE owner_id = :id)")
+			.setParameter("id", owner.getId())
+			.executeUpdate();
 		this.em.remove(this.em.contains(owner) ? owner : this.em.merge(owner));
 	}
 
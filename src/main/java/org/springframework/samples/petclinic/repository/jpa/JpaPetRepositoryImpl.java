@@ -15,17 +15,25 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.util.EntityProjection;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.RecentVisitsFilter;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -41,18 +49,59 @@ import org.springframework.stereotype.Repository;
 @Profile("jpa")
 public class JpaPetRepositoryImpl implements PetRepository {
 
+    private static final Map<String, String> PROJECTED_EXPRESSIONS = Map.of("visitCount", RecentVisitsFilter.VISIT_COUNT);
+
     @PersistenceContext
     private EntityManager em;
 
     @Override
     @SuppressWarnings("unchecked")
     public List<PetType> findPetTypes() {
-        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name").getResultList();
+        return this.em.createQuery("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList();
+    }
+
+    @Override
+    public Optional<Pet> findById(int id) {
+        return Optional.ofNullable(this.em.find(Pet.class, id));
+    }
+
+    @Override
+    public Optional<Pet> findById(int id, int visitLimit) {
+        // the owner and its pets are fetched by the query, as loading them eagerly also joins their visits, unfiltered
+        return RecentVisitsFilter.load(this.em, visitLimit, () ->
+            this.em.createQuery("SELECT pet FROM Pet pet left join fetch pet.owner owner left join fetch owner.pets WHERE pet.id = :id", Pet.class)
+                .setParameter("id", id)
+                .getResultList().stream().findFirst());
+    }
+
+    @Override
+    public List<Pet> findByIds(Collection<Integer> ids) {
+        // the owners, their pets and the visits of these are fetched by the query rather than eagerly, pet by pet
+        List<Pet> pets = new ArrayList<>();
+        for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+            pets.addAll(this.em.createQuery("SELECT DISTINCT pet FROM Pet pet left join fetch pet.owner owner left join fetch owner.pets ownerPet left join fetch ownerPet.visits WHERE pet.id IN :ids", Pet.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+        }
+        return EntityUtils.orderByIds(pets, ids);
     }
 
     @Override
-    public Pet findById(int id) {
-        return this.em.find(Pet.class, id);
+    public List<Pet> findByIds(Collection<Integer> ids, int visitLimit) {
+        return RecentVisitsFilter.load(this.em, visitLimit, () -> findByIds(ids));
+    }
+
+    @Override
+    public List<Pet> findByIds(Collection<Integer> ids, Set<String> properties) {
+        return EntityProjection.loadByIds(this.em, Pet.class, properties, PROJECTED_EXPRESSIONS, ids);
+    }
+
+    @Override
+    public Optional<Pet> findById(int id, Set<String> properties) {
+        return EntityProjection.load(this.em, Pet.class, properties, PROJECTED_EXPRESSIONS, "WHERE pet.id = :id", Map.of("id", id))
+            .stream().findFirst();
     }
 
     @Override
@@ -70,11 +119,25 @@ public class JpaPetRepositoryImpl implements PetRepository {
 		return this.em.createQuery("SELECT pet FROM Pet pet").getResultList();
 	}
 
+	@Override
+	public Collection<Pet> findAll(int visitLimit) throws DataAccessException {
+		// the owners and their pets are fetched by the query, as loading them eagerly also joins their visits, unfiltered
+		return RecentVisitsFilter.load(this.em, visitLimit, () ->
+			this.em.createQuery("SELECT DISTINCT pet FROM Pet pet left join fetch pet.owner owner left join fetch owner.pets", Pet.class)
+				.getResultList());
+	}
+
+	@Override
+	public Collection<Pet> findAll(Set<String> properties) throws DataAccessException {
+		return EntityProjection.load(this.em, Pet.class, properties, PROJECTED_EXPRESSIONS, "", Map.of());
+	}
+
 	@Override
 	public void delete(Pet pet) throws DataAccessException {
 		//this.em.remove(this.em.contains(pet) ? pet : this.em.merge(pet));
 		String petId = pet.getId().toString();
 		this.em.createQuery("DELETE FROM Visit visit WHERE pet.id=" + petId).executeUpdate();
+		this.em.createNativeQuery("DELETE FROM visits_archive WHERE pet_id=" + petId).executeUpdate();
 		this.em.createQuery("DELETE FROM Pet pet WHERE id=" + petId).executeUpdate();
 		if (em.contains(pet)) {
 			em.remove(pet);
@@ -19,10 +19,12 @@ package org.springframework.samples.petclinic.repository.jpa;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Pet;
@@ -44,8 +46,8 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
     private EntityManager em;
 
 	@Override
-	public PetType findById(int id) {
-		return this.em.find(PetType.class, id);
+	public Optional<PetType> findById(int id) {
+		return Optional.ofNullable(this.em.find(PetType.class, id));
 	}
 
     @Override
@@ -59,7 +61,9 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
     @SuppressWarnings("unchecked")
 	@Override
 	public Collection<PetType> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT ptype FROM PetType ptype").getResultList();
+		return this.em.createQuery("SELECT ptype FROM PetType ptype")
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
@@ -84,9 +88,12 @@ public class JpaPetTypeRepositoryImpl implements PetTypeRepository {
 			for (Visit visit : visits){
 				this.em.createQuery("DELETE FROM Visit visit WHERE id=" + visit.getId()).executeUpdate();
 			}
+			this.em.createNativeQuery("DELETE FROM visits_archive WHERE pet_id=" + pet.getId()).executeUpdate();
 			this.em.createQuery("DELETE FROM Pet pet WHERE id=" + pet.getId()).executeUpdate();
 		}
 		this.em.createQuery("DELETE FROM PetType pettype WHERE id=" + petTypeId).executeUpdate();
+		// the bulk delete only invalidates the second-level cache when the transaction completes
+		this.em.getEntityManagerFactory().getCache().evict(PetType.class, petTypeId);
 	}
 
 }
@@ -18,11 +18,13 @@ package org.springframework.samples.petclinic.repository.jpa;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Specialty;
@@ -42,8 +44,8 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
     private EntityManager em;
 
 	@Override
-	public Specialty findById(int id) {
-		return this.em.find(Specialty.class, id);
+	public Optional<Specialty> findById(int id) {
+		return Optional.ofNullable(this.em.find(Specialty.class, id));
 	}
 
     @Override
@@ -57,7 +59,9 @@ public class JpaSpecialtyRepositoryImpl implements SpecialtyRepository {
     @SuppressWarnings("unchecked")
 	@Override
 	public Collection<Specialty> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT s FROM Specialty s").getResultList();
+		return this.em.createQuery("SELECT s FROM Specialty s")
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList();
 	}
 
 	@Override
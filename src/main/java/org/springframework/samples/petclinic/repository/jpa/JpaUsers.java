@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.repository.jpa;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+
+import org.springframework.samples.petclinic.model.Role;
+import org.springframework.samples.petclinic.model.User;
+
+/**
+ * Saves users through JPA, writing only the roles that were granted or revoked, for {@link JpaUserRepositoryImpl} and
+ * the Spring Data JPA user repository.
+ */
+public final class JpaUsers {
+
+    private JpaUsers() {
+    }
+
+    /**
+     * Persist a new user, or copy the given one onto the managed user with the same username.
+     */
+    public static void save(EntityManager em, User user) {
+        User existing = em.find(User.class, user.getUsername());
+        if (existing == null) {
+            em.persist(user);
+        } else if (existing != user) {
+            existing.setPassword(user.getPassword());
+            existing.setEnabled(user.getEnabled());
+            updateRoles(em, existing, user.getRoles());
+        }
+    }
+
+    /**
+     * Replace the roles of the managed user by removing only the revoked roles and persisting only the granted ones,
+     * rather than merging a new set of roles. Roles without a name are skipped, as in the JDBC profile.
+     */
+    private static void updateRoles(EntityManager em, User existing, Set<Role> roles) {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (Role role : roles) {
+            if (role.getName() != null) {
+                wanted.add(role.getName());
+            }
+        }
+        for (Iterator<Role> granted = existing.getRoles().iterator(); granted.hasNext(); ) {
+            Role role = granted.next();
+            if (!wanted.remove(role.getName())) {
+                granted.remove();
+                em.remove(role);
+            }
+        }
+        for (String name : wanted) {
+            Role role = new Role();
+            role.setName(name);
+            role.setUser(existing);
+            existing.getRoles().add(role);
+            em.persist(role);
+        }
+    }
+
+}
@@ -15,15 +15,23 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.util.EntityProjection;
+import org.springframework.samples.petclinic.util.EntityUtils;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * JPA implementation of the {@link VetRepository} interface.
@@ -43,14 +51,43 @@ public class JpaVetRepositoryImpl implements VetRepository {
 
 
 	@Override
-	public Vet findById(int id) throws DataAccessException {
-		return this.em.find(Vet.class, id);
+	public Optional<Vet> findById(int id) throws DataAccessException {
+		return Optional.ofNullable(this.em.find(Vet.class, id));
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Collection<Vet> findAll() throws DataAccessException {
-		return this.em.createQuery("SELECT vet FROM Vet vet").getResultList();
+		return this.em.createQuery("SELECT DISTINCT vet FROM Vet vet LEFT JOIN FETCH vet.specialties")
+			.setHint(HibernateHints.HINT_CACHEABLE, true)
+			.getResultList();
+	}
+
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids) throws DataAccessException {
+		List<Vet> vets = new ArrayList<>();
+		for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+			vets.addAll(this.em.createQuery("SELECT DISTINCT vet FROM Vet vet LEFT JOIN FETCH vet.specialties WHERE vet.id IN :ids", Vet.class)
+				.setParameter("ids", chunk)
+				.getResultList());
+		}
+		return EntityUtils.orderByIds(vets, ids);
+	}
+
+	@Override
+	public Collection<Vet> findAll(Set<String> properties) throws DataAccessException {
+		return EntityProjection.load(this.em, Vet.class, properties, "", Map.of());
+	}
+
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+		return EntityProjection.loadByIds(this.em, Vet.class, properties, ids);
+	}
+
+	@Override
+	public Optional<Vet> findById(int id, Set<String> properties) throws DataAccessException {
+		return EntityProjection.load(this.em, Vet.class, properties, "WHERE vet.id = :id", Map.of("id", id))
+			.stream().findFirst();
 	}
 
 	@Override
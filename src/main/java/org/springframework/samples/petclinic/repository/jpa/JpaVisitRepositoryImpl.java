@@ -15,15 +15,22 @@
  */
 package org.springframework.samples.petclinic.repository.jpa;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+
+import org.hibernate.query.NativeQuery;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.VisitRepository;
 import org.springframework.stereotype.Repository;
@@ -66,8 +73,8 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
     }
 
 	@Override
-	public Visit findById(int id) throws DataAccessException {
-		return this.em.find(Visit.class, id);
+	public Optional<Visit> findById(int id) throws DataAccessException {
+		return Optional.ofNullable(this.em.find(Visit.class, id));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -81,4 +88,125 @@ public class JpaVisitRepositoryImpl implements VisitRepository {
         this.em.remove(this.em.contains(visit) ? visit : this.em.merge(visit));
 	}
 
+    @Override
+    public List<Visit> findByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit)
+        throws DataAccessException {
+        return findByDateRange(null, from, to, afterDate, afterId, limit);
+    }
+
+    @Override
+    public List<Visit> findByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                               Integer afterId, int limit) throws DataAccessException {
+        return findByDateRange(petId, from, to, afterDate, afterId, limit);
+    }
+
+    private List<Visit> findByDateRange(Integer petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                        Integer afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT v FROM Visit v JOIN FETCH v.pet WHERE 1 = 1");
+        if (petId != null) {
+            jpql.append(" AND v.pet.id = :petId");
+        }
+        if (from != null) {
+            jpql.append(" AND v.date >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND v.date <= :to");
+        }
+        if (afterDate != null) {
+            jpql.append(" AND (v.date > :afterDate OR (v.date = :afterDate AND v.id > :afterId))");
+        }
+        TypedQuery<Visit> query = this.em.createQuery(jpql.append(" ORDER BY v.date, v.id").toString(), Visit.class);
+        if (petId != null) {
+            query.setParameter("petId", petId);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (afterDate != null) {
+            query.setParameter("afterDate", afterDate).setParameter("afterId", afterId != null ? afterId : 0);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Visit> findHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+                                          int limit) throws DataAccessException {
+        StringBuilder where = new StringBuilder(" WHERE pet_id = :petId");
+        if (from != null) {
+            where.append(" AND visit_date >= :from");
+        }
+        if (to != null) {
+            where.append(" AND visit_date <= :to");
+        }
+        if (afterDate != null) {
+            where.append(" AND (visit_date > :afterDate OR (visit_date = :afterDate AND id > :afterId))");
+        }
+        // the archive has no entity, the visits are read as scalars and returned detached
+        NativeQuery<Object[]> query = this.em.createNativeQuery(
+                "SELECT id, visit_date, description FROM visits" + where +
+                    " UNION ALL SELECT id, visit_date, description FROM visits_archive" + where +
+                    " ORDER BY visit_date, id")
+            .unwrap(NativeQuery.class)
+            .addScalar("id", Integer.class)
+            .addScalar("visit_date", LocalDate.class)
+            .addScalar("description", String.class);
+        query.setParameter("petId", petId);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (afterDate != null) {
+            query.setParameter("afterDate", afterDate).setParameter("afterId", afterId != null ? afterId : 0);
+        }
+        List<Visit> visits = new ArrayList<>();
+        Pet pet = null;
+        for (Object[] row : query.setMaxResults(limit).getResultList()) {
+            if (pet == null) {
+                pet = this.em.getReference(Pet.class, petId);
+            }
+            Visit visit = new Visit();
+            visit.setId((Integer) row[0]);
+            visit.setDate((LocalDate) row[1]);
+            visit.setDescription((String) row[2]);
+            visit.setPet(pet);
+            visits.add(visit);
+        }
+        return visits;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int archive(LocalDate before, int limit) throws DataAccessException {
+        // the batch is locked, so that it is not changed between its copy and its deletion
+        List<Integer> ids = this.em.createNativeQuery(
+                "SELECT id FROM visits WHERE visit_date < :before ORDER BY visit_date, id LIMIT :limit FOR UPDATE",
+                Integer.class)
+            .setParameter("before", before)
+            .setParameter("limit", limit)
+            .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // no entity is cached for either table, so the second-level cache need not be invalidated
+        this.em.createNativeQuery("INSERT INTO visits_archive (id, pet_id, visit_date, description) " +
+                "SELECT id, pet_id, visit_date, description FROM visits WHERE id IN (:ids) AND visit_date < :before")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("visits_archive")
+            .setParameter("ids", ids)
+            .setParameter("before", before)
+            .executeUpdate();
+        return this.em.createNativeQuery("DELETE FROM visits WHERE id IN (:ids) AND visit_date < :before")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("visits")
+            .setParameter("ids", ids)
+            .setParameter("before", before)
+            .executeUpdate();
+    }
+
 }
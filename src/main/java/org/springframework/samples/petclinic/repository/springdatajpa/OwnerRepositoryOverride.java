@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+
+/**
+ * Owner deletion, which also deletes the archived visits of the pets of the owner, owner lookups by chunks of ids, owner
+ * lookups loading only the most recent visits of each pet, and lookups loading only some properties of the owners.
+ */
+
+@Profile("spring-data-jpa")
+public interface OwnerRepositoryOverride {
+
+	void delete(Owner owner);
+
+	Optional<Owner> findById(int id, int visitLimit);
+
+	List<Owner> findByIds(Collection<Integer> ids);
+
+	List<Owner> findByIds(Collection<Integer> ids, int visitLimit);
+
+	Collection<Owner> findByLastName(String lastName, int visitLimit);
+
+	Collection<Owner> findAll(int visitLimit);
+
+	Optional<Owner> findById(int id, Set<String> properties);
+
+	List<Owner> findByIds(Collection<Integer> ids, Set<String> properties);
+
+	Collection<Owner> findByLastName(String lastName, Set<String> properties);
+
+	Collection<Owner> findAll(Set<String> properties);
+
+}
@@ -16,6 +16,11 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Pet;
 
@@ -29,4 +34,18 @@ public interface PetRepositoryOverride {
 	
 	void delete(Pet pet);
 
+	Optional<Pet> findById(int id, int visitLimit);
+
+	List<Pet> findByIds(Collection<Integer> ids);
+
+	List<Pet> findByIds(Collection<Integer> ids, int visitLimit);
+
+	Collection<Pet> findAll(int visitLimit);
+
+	Optional<Pet> findById(int id, Set<String> properties);
+
+	List<Pet> findByIds(Collection<Integer> ids, Set<String> properties);
+
+	Collection<Pet> findAll(Set<String> properties);
+
 }
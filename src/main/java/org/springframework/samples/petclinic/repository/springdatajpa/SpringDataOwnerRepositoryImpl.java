@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.util.EntityProjection;
+import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.RecentVisitsFilter;
+
+/**
+ * Deletes the archived visits of the pets of an owner, which are not mapped, along with the owner, and looks owners up
+ * by chunks of ids, with the {@link org.springframework.samples.petclinic.model.Pet#RECENT_VISITS} filter or with only some of their
+ * properties, see {@link EntityProjection}.
+ */
+
+@Profile("spring-data-jpa")
+public class SpringDataOwnerRepositoryImpl implements OwnerRepositoryOverride {
+
+	@PersistenceContext
+    private EntityManager em;
+
+	@Override
+	public void delete(Owner owner) {
+		this.em.createNativeQuery("DELETE FROM visits_archive WHERE pet_id IN (SELECT id FROM pets WHERE owner_id = :id)")
+			.setParameter("id", owner.getId())
+			.executeUpdate();
+		this.em.remove(this.em.contains(owner) ? owner : this.em.merge(owner));
+	}
+
+	@Override
+	public Optional<Owner> findById(int id, int visitLimit) {
+		return RecentVisitsFilter.load(this.em, visitLimit, () ->
+			this.em.createQuery("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id", Owner.class)
+				.setParameter("id", id)
+				.getResultList().stream().findFirst());
+	}
+
+	@Override
+	public List<Owner> findByIds(Collection<Integer> ids) {
+		List<Owner> owners = new ArrayList<>();
+		for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+			owners.addAll(this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.visits WHERE owner.id IN :ids", Owner.class)
+				.setParameter("ids", chunk)
+				.getResultList());
+		}
+		return EntityUtils.orderByIds(owners, ids);
+	}
+
+	@Override
+	public List<Owner> findByIds(Collection<Integer> ids, int visitLimit) {
+		return RecentVisitsFilter.load(this.em, visitLimit, () -> findByIds(ids));
+	}
+
+	@Override
+	public Collection<Owner> findByLastName(String lastName, int visitLimit) {
+		return RecentVisitsFilter.load(this.em, visitLimit, () ->
+			this.em.createQuery("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName", Owner.class)
+				.setParameter("lastName", lastName + "%")
+				.getResultList());
+	}
+
+	@Override
+	public Collection<Owner> findAll(int visitLimit) {
+		return RecentVisitsFilter.load(this.em, visitLimit, () ->
+			this.em.createQuery("SELECT owner FROM Owner owner", Owner.class).getResultList());
+	}
+
+	@Override
+	public List<Owner> findByIds(Collection<Integer> ids, Set<String> properties) {
+		return EntityProjection.loadByIds(this.em, Owner.class, properties, ids);
+	}
+
+	@Override
+	public Optional<Owner> findById(int id, Set<String> properties) {
+		return EntityProjection.load(this.em, Owner.class, properties, "WHERE owner.id = :id", Map.of("id", id))
+			.stream().findFirst();
+	}
+
+	@Override
+	public Collection<Owner> findByLastName(String lastName, Set<String> properties) {
+		return EntityProjection.load(this.em, Owner.class, properties, "WHERE owner.lastName LIKE :lastName",
+			Map.of("lastName", lastName + "%"));
+	}
+
+	@Override
+	public Collection<Owner> findAll(Set<String> properties) {
+		return EntityProjection.load(this.em, Owner.class, properties, "", Map.of());
+	}
+
+}
@@ -48,9 +48,12 @@ public class SpringDataPetTypeRepositoryImpl implements PetTypeRepositoryOverrid
 			for (Visit visit : visits){
 				this.em.createQuery("DELETE FROM Visit visit WHERE id=" + visit.getId()).executeUpdate();
 			}
+			this.em.createNativeQuery("DELETE FROM visits_archive WHERE pet_id=" + pet.getId()).executeUpdate();
 			this.em.createQuery("DELETE FROM Pet pet WHERE id=" + pet.getId()).executeUpdate();
 		}
 		this.em.createQuery("DELETE FROM PetType pettype WHERE id=" + petTypeId).executeUpdate();
+		// the bulk delete only invalidates the second-level cache when the transaction completes
+		this.em.getEntityManagerFactory().getCache().evict(PetType.class, petTypeId);
 	}
 
 }
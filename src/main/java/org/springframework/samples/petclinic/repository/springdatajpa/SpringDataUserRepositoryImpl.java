@@ -0,0 +1,21 @@
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.User;
+import org.springframework.samples.petclinic.repository.jpa.JpaUsers;
+
+@Profile("spring-data-jpa")
+public class SpringDataUserRepositoryImpl implements UserRepositoryOverride {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void save(User user) {
+        JpaUsers.save(this.em, user);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.util.EntityProjection;
+import org.springframework.samples.petclinic.util.EntityUtils;
+
+/**
+ * Looks vets up by chunks of ids, or with only some of their properties, see {@link EntityProjection}.
+ */
+
+@Profile("spring-data-jpa")
+public class SpringDataVetRepositoryImpl implements VetRepositoryOverride {
+
+	@PersistenceContext
+    private EntityManager em;
+
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids) {
+		List<Vet> vets = new ArrayList<>();
+		for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+			vets.addAll(this.em.createQuery("SELECT DISTINCT vet FROM Vet vet LEFT JOIN FETCH vet.specialties WHERE vet.id IN :ids", Vet.class)
+				.setParameter("ids", chunk)
+				.getResultList());
+		}
+		return EntityUtils.orderByIds(vets, ids);
+	}
+
+	@Override
+	public Collection<Vet> findAll(Set<String> properties) {
+		return EntityProjection.load(this.em, Vet.class, properties, "", Map.of());
+	}
+
+	@Override
+	public List<Vet> findByIds(Collection<Integer> ids, Set<String> properties) {
+		return EntityProjection.loadByIds(this.em, Vet.class, properties, ids);
+	}
+
+	@Override
+	public Optional<Vet> findById(int id, Set<String> properties) {
+		return EntityProjection.load(this.em, Vet.class, properties, "WHERE vet.id = :id", Map.of("id", id))
+			.stream().findFirst();
+	}
+
+}
@@ -0,0 +1,11 @@
+package org.springframework.samples.petclinic.repository.springdatajpa;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.User;
+
+@Profile("spring-data-jpa")
+public interface UserRepositoryOverride {
+
+    void save(User user);
+
+}
@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.repository.springdatajpa;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.samples.petclinic.model.Visit;
 
@@ -29,4 +32,14 @@ public interface VisitRepositoryOverride {
 	
 	void delete(Visit visit);
 
+	List<Visit> findByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit);
+
+	List<Visit> findByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+	                                    int limit);
+
+	List<Visit> findHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+	                               int limit);
+
+	int archive(LocalDate before, int limit);
+
 }
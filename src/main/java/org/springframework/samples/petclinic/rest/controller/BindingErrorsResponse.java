@@ -25,7 +25,9 @@ import org.springframework.validation.FieldError;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * @author Vitaliy Fedoriv
@@ -34,6 +36,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class BindingErrorsResponse {
 
+    /**
+     * Built once rather than per call, so that the serializers it looks up are kept.
+     */
+    private static final ObjectWriter ERRORS_WRITER = new ObjectMapper()
+        .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+        .writerFor(new TypeReference<List<BindingError>>() {
+        });
+
     public BindingErrorsResponse() {
         this(null);
     }
@@ -80,11 +90,9 @@ public class BindingErrorsResponse {
 	}
 
 	public String toJSON() {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
 		String errorsAsJSON = "";
 		try {
-			errorsAsJSON = mapper.writeValueAsString(bindingErrors);
+			errorsAsJSON = ERRORS_WRITER.writeValueAsString(bindingErrors);
 		} catch (JsonProcessingException e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest.controller;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The fields of the response selected by the <code>fields</code> query parameter, <code>id,lastName</code>, validated
+ * against the pattern of the API.
+ * <p>
+ * When the selected fields can be loaded on their own, the entities are loaded with just their columns, see
+ * {@link #properties(Map)}. Either way only the selected fields are serialized: the selection is kept in the request
+ * for {@link org.springframework.samples.petclinic.rest.advice.FieldSelectionAdvice}, which applies {@link #filter()}
+ * to the DTOs annotated with the {@link #FILTER} filter.
+ */
+public final class FieldSelection {
+
+    public static final String FILTER = "fieldSelection";
+
+    public static final String ATTRIBUTE = FieldSelection.class.getName();
+
+    private final Class<?> dtoType;
+
+    private final Set<String> fields;
+
+    private FieldSelection(Class<?> dtoType, Set<String> fields) {
+        this.dtoType = dtoType;
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields  the <code>fields</code> query parameter, or <code>null</code> to select all the fields
+     * @param dtoType the DTO whose fields are selected; the DTOs nested in it are serialized whole
+     */
+    static FieldSelection select(String fields, Class<?> dtoType) {
+        if (fields == null) {
+            return new FieldSelection(dtoType, null);
+        }
+        FieldSelection selection = new FieldSelection(dtoType, new LinkedHashSet<>(Arrays.asList(fields.split(","))));
+        RequestContextHolder.currentRequestAttributes()
+            .setAttribute(ATTRIBUTE, selection, RequestAttributes.SCOPE_REQUEST);
+        return selection;
+    }
+
+    /**
+     * @param loadable the fields that can be loaded on their own, mapped to the entity properties holding them
+     * @return the entity properties holding the selected fields, or <code>null</code> if all the fields are selected
+     * or if one of them needs the whole entity, like a collection
+     */
+    Set<String> properties(Map<String, String> loadable) {
+        if (this.fields == null || !loadable.keySet().containsAll(this.fields)) {
+            return null;
+        }
+        Set<String> properties = new LinkedHashSet<>();
+        for (String field : this.fields) {
+            properties.add(loadable.get(field));
+        }
+        return properties;
+    }
+
+    /**
+     * @return a filter serializing only the selected fields of the DTO, and all the fields of any other object
+     */
+    public PropertyFilter filter() {
+        return new SimpleBeanPropertyFilter() {
+            @Override
+            public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+                                         PropertyWriter writer) throws Exception {
+                if (!dtoType.isInstance(pojo) || fields.contains(writer.getName())) {
+                    writer.serializeAsField(pojo, gen, provider);
+                } else if (!gen.canOmitFields()) {
+                    writer.serializeAsOmittedField(pojo, gen, provider);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+/**
+ * Lookup of entities by the <code>ids</code> query parameter: the entities found are returned in the order of the
+ * ids, and the ids of none are listed in a <code>Missing-Ids</code> header.
+ */
+record IdLookup(List<Integer> ids) {
+
+    static final String MISSING_IDS = "Missing-Ids";
+
+    /**
+     * @param ids the <code>ids</code> query parameter, whose repeated ids are looked up once
+     */
+    static IdLookup of(List<Integer> ids) {
+        return new IdLookup(new ArrayList<>(new LinkedHashSet<>(ids)));
+    }
+
+    /**
+     * @param found  the entities found for the ids, in their order
+     * @param mapper maps the entities to their DTOs, keeping their order
+     */
+    <T extends BaseEntity, D> ResponseEntity<List<D>> toResponse(List<T> found,
+                                                                 Function<List<T>, ? extends Collection<D>> mapper) {
+        HttpHeaders headers = new HttpHeaders();
+        Set<Integer> foundIds = found.stream().map(BaseEntity::getId).collect(Collectors.toSet());
+        String missing = this.ids.stream()
+            .filter(id -> !foundIds.contains(id))
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+        if (!missing.isEmpty()) {
+            headers.add(MISSING_IDS, missing);
+        }
+        if (found.isEmpty()) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new ArrayList<>(mapper.apply(found)), headers, HttpStatus.OK);
+    }
+
+}
@@ -16,9 +16,11 @@
 
 package org.springframework.samples.petclinic.rest.controller;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.mapper.OwnerDashboardMapper;
 import org.springframework.samples.petclinic.mapper.OwnerMapper;
 import org.springframework.samples.petclinic.mapper.PetMapper;
 import org.springframework.samples.petclinic.mapper.VisitMapper;
@@ -28,26 +30,45 @@ import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.api.OwnersApi;
 import org.springframework.samples.petclinic.rest.dto.*;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerDashboard;
+import org.springframework.samples.petclinic.security.Roles;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.transaction.Transactional;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Vitaliy Fedoriv
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, missing-ids")
 @RequestMapping("/api")
 public class OwnerRestController implements OwnersApi {
 
+    /**
+     * The fields of an owner that can be loaded on their own, mapped to the properties holding them.
+     */
+    private static final Map<String, String> LOADABLE_FIELDS = Map.of(
+        "id", "id",
+        "firstName", "firstName",
+        "lastName", "lastName",
+        "address", "address",
+        "city", "city",
+        "telephone", "telephone");
+
     private final ClinicService clinicService;
 
     private final OwnerMapper ownerMapper;
@@ -56,24 +77,56 @@ public class OwnerRestController implements OwnersApi {
 
     private final VisitMapper visitMapper;
 
+    private final OwnerDashboardMapper ownerDashboardMapper;
+
+    private final int embeddedVisits;
+
+    private final Roles roles;
+
+    private final boolean securityEnabled;
+
     public OwnerRestController(ClinicService clinicService,
                                OwnerMapper ownerMapper,
                                PetMapper petMapper,
-                               VisitMapper visitMapper) {
+                               VisitMapper visitMapper,
+                               OwnerDashboardMapper ownerDashboardMapper,
+                               @Value("${petclinic.visits.embed-limit:20}") int embeddedVisits,
+                               Roles roles,
+                               @Value("${petclinic.security.enable:false}") boolean securityEnabled) {
         this.clinicService = clinicService;
         this.ownerMapper = ownerMapper;
         this.petMapper = petMapper;
         this.visitMapper = visitMapper;
+        this.ownerDashboardMapper = ownerDashboardMapper;
+        this.embeddedVisits = embeddedVisits;
+        this.roles = roles;
+        this.securityEnabled = securityEnabled;
     }
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<List<OwnerDto>> listOwners(String lastName) {
+    public ResponseEntity<List<OwnerDto>> listOwners(String lastName, Integer visits, String fields,
+                                                     List<Integer> ids) {
+        Set<String> properties = FieldSelection.select(fields, OwnerDto.class).properties(LOADABLE_FIELDS);
+        if (ids != null) {
+            if (lastName != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The ids and lastName parameters are exclusive");
+            }
+            IdLookup lookup = IdLookup.of(ids);
+            return lookup.toResponse(properties != null
+                    ? this.clinicService.findOwnersByIds(lookup.ids(), properties)
+                    : this.clinicService.findOwnersByIds(lookup.ids(), visitLimit(visits)),
+                ownerMapper::toOwnerDtoCollection);
+        }
         Collection<Owner> owners;
-        if (lastName != null) {
-            owners = this.clinicService.findOwnerByLastName(lastName);
+        if (properties != null) {
+            owners = lastName != null
+                ? this.clinicService.findOwnerByLastName(lastName, properties)
+                : this.clinicService.findAllOwners(properties);
+        } else if (lastName != null) {
+            owners = this.clinicService.findOwnerByLastName(lastName, visitLimit(visits));
         } else {
-            owners = this.clinicService.findAllOwners();
+            owners = this.clinicService.findAllOwners(visitLimit(visits));
         }
         if (owners.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -83,14 +136,27 @@ public class OwnerRestController implements OwnersApi {
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<OwnerDto> getOwner(Integer ownerId) {
-        Owner owner = this.clinicService.findOwnerById(ownerId);
+    public ResponseEntity<OwnerDto> getOwner(Integer ownerId, Integer visits, String fields) {
+        Set<String> properties = FieldSelection.select(fields, OwnerDto.class).properties(LOADABLE_FIELDS);
+        Owner owner = properties != null
+            ? this.clinicService.findOwnerById(ownerId, properties)
+            : this.clinicService.findOwnerById(ownerId, visitLimit(visits));
         if (owner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return new ResponseEntity<>(ownerMapper.toOwnerDto(owner), HttpStatus.OK);
     }
 
+    @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+    @Override
+    public ResponseEntity<OwnerDashboardDto> getOwnerDashboard(Integer ownerId, Integer visits) {
+        OwnerDashboard dashboard = this.clinicService.findOwnerDashboard(ownerId, visitLimit(visits), canListVets());
+        if (dashboard == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(ownerDashboardMapper.toOwnerDashboardDto(dashboard), HttpStatus.OK);
+    }
+
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
     public ResponseEntity<OwnerDto> addOwner(OwnerFieldsDto ownerFieldsDto) {
@@ -106,7 +172,7 @@ public class OwnerRestController implements OwnersApi {
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
     public ResponseEntity<OwnerDto> updateOwner(Integer ownerId, OwnerFieldsDto ownerFieldsDto) {
-        Owner currentOwner = this.clinicService.findOwnerById(ownerId);
+        Owner currentOwner = this.clinicService.findOwnerForUpdate(ownerId);
         if (currentOwner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -123,7 +189,7 @@ public class OwnerRestController implements OwnersApi {
     @Transactional
     @Override
     public ResponseEntity<OwnerDto> deleteOwner(Integer ownerId) {
-        Owner owner = this.clinicService.findOwnerById(ownerId);
+        Owner owner = this.clinicService.findOwnerForUpdate(ownerId);
         if (owner == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -165,8 +231,8 @@ public class OwnerRestController implements OwnersApi {
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<PetDto> getOwnersPet(Integer ownerId, Integer petId) {
-        Owner owner = this.clinicService.findOwnerById(ownerId);
+    public ResponseEntity<PetDto> getOwnersPet(Integer ownerId, Integer petId, Integer visits) {
+        Owner owner = this.clinicService.findOwnerById(ownerId, visitLimit(visits));
         if (owner != null) {
             Pet pet = owner.getPet(petId);
             if (pet != null) {
@@ -175,4 +241,26 @@ public class OwnerRestController implements OwnersApi {
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
+
+    /**
+     * @return the <code>visits</code> query parameter, or <code>petclinic.visits.embed-limit</code> if not given
+     */
+    private int visitLimit(Integer visits) {
+        return visits != null ? visits : this.embeddedVisits;
+    }
+
+    /**
+     * Whether the caller may see the vets and the specialties, which their own endpoints restrict to the VET_ADMIN
+     * role; anyone may without security.
+     */
+    private boolean canListVets() {
+        if (!this.securityEnabled) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch(this.roles.VET_ADMIN::equals);
+    }
+
 }
@@ -16,13 +16,16 @@
 
 package org.springframework.samples.petclinic.rest.controller;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.mapper.PetMapper;
+import org.springframework.samples.petclinic.mapper.VisitMapper;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.rest.api.PetsApi;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -30,31 +33,54 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Vitaliy Fedoriv
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, missing-ids")
 @RequestMapping("api")
 public class PetRestController implements PetsApi {
 
+    /**
+     * The fields of a pet that can be loaded on their own, mapped to the properties holding them.
+     */
+    private static final Map<String, String> LOADABLE_FIELDS = Map.of(
+        "id", "id",
+        "name", "name",
+        "birthDate", "birthDate",
+        "ownerId", "owner.id",
+        "visitCount", "visitCount");
+
     private final ClinicService clinicService;
 
     private final PetMapper petMapper;
 
-    public PetRestController(ClinicService clinicService, PetMapper petMapper) {
+    private final VisitMapper visitMapper;
+
+    private final int embeddedVisits;
+
+    public PetRestController(ClinicService clinicService, PetMapper petMapper, VisitMapper visitMapper,
+                             @Value("${petclinic.visits.embed-limit:20}") int embeddedVisits) {
         this.clinicService = clinicService;
         this.petMapper = petMapper;
+        this.visitMapper = visitMapper;
+        this.embeddedVisits = embeddedVisits;
     }
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<PetDto> getPet(Integer petId) {
-        PetDto pet = petMapper.toPetDto(this.clinicService.findPetById(petId));
+    public ResponseEntity<PetDto> getPet(Integer petId, Integer visits, String fields) {
+        Set<String> properties = FieldSelection.select(fields, PetDto.class).properties(LOADABLE_FIELDS);
+        PetDto pet = petMapper.toPetDto(properties != null
+            ? this.clinicService.findPetById(petId, properties)
+            : this.clinicService.findPetById(petId, visitLimit(visits)));
         if (pet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -63,14 +89,47 @@ public class PetRestController implements PetsApi {
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<List<PetDto>> listPets() {
-        List<PetDto> pets = new ArrayList<>(petMapper.toPetsDto(this.clinicService.findAllPets()));
+    public ResponseEntity<List<PetDto>> listPets(Integer visits, String fields, List<Integer> ids) {
+        Set<String> properties = FieldSelection.select(fields, PetDto.class).properties(LOADABLE_FIELDS);
+        if (ids != null) {
+            IdLookup lookup = IdLookup.of(ids);
+            return lookup.toResponse(properties != null
+                    ? this.clinicService.findPetsByIds(lookup.ids(), properties)
+                    : this.clinicService.findPetsByIds(lookup.ids(), visitLimit(visits)),
+                petMapper::toPetsDto);
+        }
+        List<PetDto> pets = new ArrayList<>(petMapper.toPetsDto(properties != null
+            ? this.clinicService.findAllPets(properties)
+            : this.clinicService.findAllPets(visitLimit(visits))));
         if (pets.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
         return new ResponseEntity<>(pets, HttpStatus.OK);
     }
 
+    @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+    @Override
+    public ResponseEntity<List<VisitDto>> listPetVisits(Integer petId, LocalDate from, LocalDate to, String after,
+                                                        Integer limit) {
+        if (this.clinicService.findPetById(petId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        VisitPage page = VisitPage.of(after, limit);
+        return page.toResponse(this.clinicService.findVisitsByPetIdAndDateRange(petId, from, to, page.afterDate(),
+            page.afterId(), page.limit()), visitMapper);
+    }
+
+    @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
+    @Override
+    public ResponseEntity<List<VisitDto>> listPetVisitHistory(Integer petId, LocalDate from, LocalDate to,
+                                                              String after, Integer limit) {
+        if (this.clinicService.findPetById(petId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        VisitPage page = VisitPage.of(after, limit);
+        return page.toResponse(this.clinicService.findVisitHistoryByPetId(petId, from, to, page.afterDate(),
+            page.afterId(), page.limit()), visitMapper);
+    }
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
@@ -106,4 +165,11 @@ public class PetRestController implements PetsApi {
         headers.setLocation(UriComponentsBuilder.newInstance().path("/api/pets/{id}").buildAndExpand(pet.getId()).toUri());
         return new ResponseEntity<>(petMapper.toPetDto(pet), headers, HttpStatus.CREATED);
     }
+
+    /**
+     * @return the <code>visits</code> query parameter, or <code>petclinic.visits.embed-limit</code> if not given
+     */
+    private int visitLimit(Integer visits) {
+        return visits != null ? visits : this.embeddedVisits;
+    }
 }
@@ -32,6 +32,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -39,10 +41,18 @@ import java.util.stream.Collectors;
  */
 
 @RestController
-@CrossOrigin(exposedHeaders = "errors, content-type")
+@CrossOrigin(exposedHeaders = "errors, content-type, missing-ids")
 @RequestMapping("api")
 public class VetRestController implements VetsApi {
 
+    /**
+     * The fields of a vet that can be loaded on their own, mapped to the properties holding them.
+     */
+    private static final Map<String, String> LOADABLE_FIELDS = Map.of(
+        "id", "id",
+        "firstName", "firstName",
+        "lastName", "lastName");
+
     private final ClinicService clinicService;
     private final VetMapper vetMapper;
     private final SpecialtyMapper specialtyMapper;
@@ -55,8 +65,18 @@ public class VetRestController implements VetsApi {
 
     @PreAuthorize("hasRole(@roles.VET_ADMIN)")
     @Override
-    public ResponseEntity<List<VetDto>> listVets() {
-        List<VetDto> vets = new ArrayList<>(vetMapper.toVetDtos(this.clinicService.findAllVets()));
+    public ResponseEntity<List<VetDto>> listVets(String fields, List<Integer> ids) {
+        Set<String> properties = FieldSelection.select(fields, VetDto.class).properties(LOADABLE_FIELDS);
+        if (ids != null) {
+            IdLookup lookup = IdLookup.of(ids);
+            return lookup.toResponse(properties != null
+                    ? this.clinicService.findVetsByIds(lookup.ids(), properties)
+                    : this.clinicService.findVetsByIds(lookup.ids()),
+                vetMapper::toVetDtos);
+        }
+        List<VetDto> vets = new ArrayList<>(vetMapper.toVetDtos(properties != null
+            ? this.clinicService.findAllVets(properties)
+            : this.clinicService.findAllVets()));
         if (vets.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -65,8 +85,11 @@ public class VetRestController implements VetsApi {
 
     @PreAuthorize("hasRole(@roles.VET_ADMIN)")
     @Override
-    public ResponseEntity<VetDto> getVet(Integer vetId)  {
-        Vet vet = this.clinicService.findVetById(vetId);
+    public ResponseEntity<VetDto> getVet(Integer vetId, String fields)  {
+        Set<String> properties = FieldSelection.select(fields, VetDto.class).properties(LOADABLE_FIELDS);
+        Vet vet = properties != null
+            ? this.clinicService.findVetById(vetId, properties)
+            : this.clinicService.findVetById(vetId);
         if (vet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -90,7 +113,7 @@ public class VetRestController implements VetsApi {
     @PreAuthorize("hasRole(@roles.VET_ADMIN)")
     @Override
     public ResponseEntity<VetDto> updateVet(Integer vetId,VetDto vetDto)  {
-        Vet currentVet = this.clinicService.findVetById(vetId);
+        Vet currentVet = this.clinicService.findVetForUpdate(vetId);
         if (currentVet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -112,7 +135,7 @@ public class VetRestController implements VetsApi {
     @Transactional
     @Override
     public ResponseEntity<VetDto> deleteVet(Integer vetId) {
-        Vet vet = this.clinicService.findVetById(vetId);
+        Vet vet = this.clinicService.findVetForUpdate(vetId);
         if (vet == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
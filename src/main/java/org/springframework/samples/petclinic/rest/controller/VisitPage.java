@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.rest.controller;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.mapper.VisitMapper;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Keyset pagination of visits ordered by date and id: the <code>after</code> query parameter holds the date and id of
+ * the last visit of the previous page, <code>2013-01-02,2</code>, and a full page links to the next one with a
+ * <code>Link</code> header.
+ */
+record VisitPage(LocalDate afterDate, Integer afterId, int limit) {
+
+    static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * @param after the <code>after</code> query parameter, validated against the pattern of the API, or
+     *              <code>null</code> for the first page
+     * @throws ResponseStatusException with a <code>400</code> status if <code>after</code> does not hold a valid date
+     *                                 and id
+     * @param limit the <code>limit</code> query parameter, or <code>null</code> for {@link #DEFAULT_LIMIT}
+     */
+    static VisitPage of(String after, Integer limit) {
+        int pageLimit = limit != null ? limit : DEFAULT_LIMIT;
+        if (after == null) {
+            return new VisitPage(null, null, pageLimit);
+        }
+        int separator = after.indexOf(',');
+        try {
+            return new VisitPage(LocalDate.parse(after.substring(0, separator)),
+                Integer.valueOf(after.substring(separator + 1)), pageLimit);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            // matches the pattern but is not a date, 2013-02-30, or not an int id
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid after parameter: " + after, ex);
+        }
+    }
+
+    ResponseEntity<List<VisitDto>> toResponse(List<Visit> visits, VisitMapper visitMapper) {
+        HttpHeaders headers = new HttpHeaders();
+        if (visits.size() == this.limit) {
+            Visit last = visits.get(visits.size() - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", last.getDate() + "," + last.getId())
+                .build().toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(new ArrayList<>(visitMapper.toVisitsDto(visits)), headers, HttpStatus.OK);
+    }
+
+}
@@ -29,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.transaction.Transactional;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,7 +54,12 @@ public class VisitRestController implements VisitsApi {
 
     @PreAuthorize("hasRole(@roles.OWNER_ADMIN)")
     @Override
-    public ResponseEntity<List<VisitDto>> listVisits() {
+    public ResponseEntity<List<VisitDto>> listVisits(LocalDate from, LocalDate to, String after, Integer limit) {
+        if (from != null || to != null || after != null || limit != null) {
+            VisitPage page = VisitPage.of(after, limit);
+            return page.toResponse(this.clinicService.findVisitsByDateRange(from, to, page.afterDate(), page.afterId(),
+                page.limit()), visitMapper);
+        }
         List<Visit> visits = new ArrayList<>(this.clinicService.findAllVisits());
         if (visits.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -1,20 +1,31 @@
 package org.springframework.samples.petclinic.security;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+import org.springframework.security.core.userdetails.jdbc.JdbcDaoImpl;
 import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.Map;
 
 @Configuration
@@ -25,16 +36,54 @@ public class BasicAuthenticationConfig {
     @Autowired
     private DataSource dataSource;
 
+    @Value("${petclinic.security.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${petclinic.security.cache.time-to-live:5m}")
+    private Duration cacheTimeToLive;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         var encoders = Map.of("noop", NoOpPasswordEncoder.getInstance());
         var passwordEncoder = new DelegatingPasswordEncoder("noop", encoders);
         passwordEncoder.setDefaultPasswordEncoderForMatches(NoOpPasswordEncoder.getInstance());
-        return passwordEncoder;
+        return new VerifiedCredentialsPasswordEncoder(passwordEncoder, cacheMaximumSize, cacheTimeToLive);
     }
 
+    /**
+     * Users loaded for authentication, kept for <code>petclinic.security.cache.time-to-live</code> so that a request
+     * does not query the users and roles tables. Saving a user through the <code>UserService</code> evicts it.
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public UserCache userCache() {
+        return new SpringCacheBasedUserCache(new CaffeineCache("users", Caffeine.newBuilder()
+            .maximumSize(cacheMaximumSize)
+            .expireAfterWrite(cacheTimeToLive)
+            .build()));
+    }
+
+    /**
+     * Loads users from the users and roles tables through the {@link #userCache() user cache}. Authentication erases
+     * the password of the user it returns, so each call hands out a copy of the cached user.
+     */
+    @Bean
+    public UserDetailsService userDetailsService(UserCache userCache) {
+        JdbcDaoImpl jdbcUserDetailsService = new JdbcDaoImpl();
+        jdbcUserDetailsService.setDataSource(dataSource);
+        jdbcUserDetailsService.setUsersByUsernameQuery("select username,password,enabled from users where username=?");
+        jdbcUserDetailsService.setAuthoritiesByUsernameQuery("select username,role from roles where username=?");
+        return username -> {
+            UserDetails user = userCache.getUserFromCache(username);
+            if (user == null) {
+                user = jdbcUserDetailsService.loadUserByUsername(username);
+                userCache.putUserInCache(user);
+            }
+            return User.withUserDetails(user).build();
+        };
+    }
+
+    @Bean
+    public SecurityFilterChain filterChain(HttpSecurity http, ObjectProvider<TokenService> tokenService) throws Exception {
         // @formatter:off
         http
             .csrf(AbstractHttpConfigurer::disable)
@@ -42,17 +91,19 @@ public class BasicAuthenticationConfig {
                 .anyRequest().authenticated())
                 .httpBasic(Customizer.withDefaults());
         // @formatter:on
+        TokenService tokens = tokenService.getIfAvailable();
+        if (tokens != null) {
+            // petclinic.security.mode=token: bearer tokens are verified by their signature and carry the roles
+            // @formatter:off
+            http
+                .oauth2ResourceServer((oauth2) -> oauth2
+                    .jwt((jwt) -> jwt
+                        .decoder(tokens.getDecoder())
+                        .jwtAuthenticationConverter(tokens.getAuthenticationConverter())))
+                .sessionManagement((session) -> session
+                    .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+            // @formatter:on
+        }
         return http.build();
     }
-
-    @Autowired
-    public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
-        // @formatter:off
-        auth
-            .jdbcAuthentication()
-                .dataSource(dataSource)
-                .usersByUsernameQuery("select username,password,enabled from users where username=?")
-                .authoritiesByUsernameQuery("select username,role from roles where username=?");
-        // @formatter:on
-    }
 }
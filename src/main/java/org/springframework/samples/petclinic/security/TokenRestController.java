@@ -0,0 +1,49 @@
+package org.springframework.samples.petclinic.security;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exchanges HTTP Basic credentials for a signed token, see {@link TokenService}.
+ */
+@RestController
+@CrossOrigin(exposedHeaders = "errors, content-type")
+@RequestMapping("api")
+@ConditionalOnExpression(TokenService.TOKEN_MODE)
+public class TokenRestController {
+
+    private final TokenService tokenService;
+
+    public TokenRestController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping("/token")
+    public ResponseEntity<TokenDto> issueToken(Authentication authentication) {
+        // a token cannot be renewed with itself, so that it stays short-lived
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        Jwt token = this.tokenService.issue(authentication);
+        long expiresIn = Duration.between(Instant.now(), token.getExpiresAt()).toSeconds();
+        return new ResponseEntity<>(new TokenDto(token.getTokenValue(), "Bearer", expiresIn), HttpStatus.OK);
+    }
+
+    public record TokenDto(@JsonProperty("access_token") String accessToken,
+                           @JsonProperty("token_type") String tokenType,
+                           @JsonProperty("expires_in") long expiresIn) {
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and verifies the signed tokens of <code>petclinic.security.mode=token</code>.
+ * <p>
+ * Tokens are JWTs signed with HMAC-SHA256 using the base64 encoded <code>petclinic.security.token.secret</code>. They
+ * carry the roles of the user (e.g. <code>ROLE_OWNER_ADMIN</code>) in a <code>roles</code> claim and expire after
+ * <code>petclinic.security.token.time-to-live</code>, so that requests bearing a token are authorized without looking
+ * the user up.
+ */
+@Component
+@ConditionalOnExpression(TokenService.TOKEN_MODE)
+public class TokenService {
+
+    static final String TOKEN_MODE =
+        "${petclinic.security.enable:false} and '${petclinic.security.mode:basic}' == 'token'";
+
+    private static final String ISSUER = "petclinic";
+
+    private static final String ROLES_CLAIM = "roles";
+
+    private final JwtEncoder encoder;
+
+    private final JwtDecoder decoder;
+
+    private final Duration timeToLive;
+
+    public TokenService(@Value("${petclinic.security.token.secret:}") String secret,
+                        @Value("${petclinic.security.token.time-to-live:15m}") Duration timeToLive) {
+        byte[] keyBytes = Base64.getDecoder().decode(secret);
+        if (keyBytes.length < 32) {
+            throw new IllegalStateException(
+                "petclinic.security.token.secret must be a base64 encoded key of at least 256 bits");
+        }
+        SecretKey key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.encoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+        this.decoder = decoder;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Issue a token for the given, already authenticated, user.
+     */
+    public Jwt issue(Authentication authentication) {
+        Instant now = Instant.now();
+        List<String> roles = authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .toList();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+            .issuer(ISSUER)
+            .subject(authentication.getName())
+            .issuedAt(now)
+            .expiresAt(now.plus(this.timeToLive))
+            .claim(ROLES_CLAIM, roles)
+            .build();
+        return this.encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+    }
+
+    public JwtDecoder getDecoder() {
+        return this.decoder;
+    }
+
+    /**
+     * Authenticates a verified token as its subject, with the authorities of its <code>roles</code> claim.
+     */
+    public JwtAuthenticationConverter getAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(ROLES_CLAIM);
+        // the roles are stored with their ROLE_ prefix
+        authoritiesConverter.setAuthorityPrefix("");
+        JwtAuthenticationConverter authenticationConverter = new JwtAuthenticationConverter();
+        authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return authenticationConverter;
+    }
+
+}
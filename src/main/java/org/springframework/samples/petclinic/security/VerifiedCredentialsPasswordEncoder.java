@@ -0,0 +1,70 @@
+package org.springframework.samples.petclinic.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A <code>PasswordEncoder</code> that remembers the credentials it recently verified, so that Basic authentication
+ * does not re-hash the same password on every request.
+ * <p>
+ * Entries are keyed by the encoded password and hold a SHA-256 digest of the raw password that matched it; changing a
+ * password therefore changes the key and the old credentials are no longer accepted from the cache. The cache is
+ * bounded in size and entries expire after the given time to live.
+ */
+public class VerifiedCredentialsPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final Cache<String, byte[]> verified;
+
+    public VerifiedCredentialsPasswordEncoder(PasswordEncoder delegate, long maximumSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .build();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return this.delegate.matches(rawPassword, encodedPassword);
+        }
+        byte[] digest = digest(rawPassword);
+        byte[] cached = this.verified.getIfPresent(encodedPassword);
+        if (cached != null && MessageDigest.isEqual(cached, digest)) {
+            return true;
+        }
+        boolean matches = this.delegate.matches(rawPassword, encodedPassword);
+        if (matches) {
+            this.verified.put(encodedPassword, digest);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static byte[] digest(CharSequence rawPassword) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                .digest(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.service;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -36,25 +37,52 @@ import org.springframework.samples.petclinic.model.Visit;
 public interface ClinicService {
 
 	Pet findPetById(int id) throws DataAccessException;
+	Pet findPetById(int id, int visitLimit) throws DataAccessException;
 	Collection<Pet> findAllPets() throws DataAccessException;
+	Collection<Pet> findAllPets(int visitLimit) throws DataAccessException;
+	Pet findPetById(int id, Set<String> properties) throws DataAccessException;
+	List<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException;
+	List<Pet> findPetsByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException;
+	List<Pet> findPetsByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+	Collection<Pet> findAllPets(Set<String> properties) throws DataAccessException;
 	void savePet(Pet pet) throws DataAccessException;
 	void deletePet(Pet pet) throws DataAccessException;
 
 	Collection<Visit> findVisitsByPetId(int petId);
 	Visit findVisitById(int visitId) throws DataAccessException;
 	Collection<Visit> findAllVisits() throws DataAccessException;
+	List<Visit> findVisitsByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit) throws DataAccessException;
+	List<Visit> findVisitsByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit) throws DataAccessException;
+	List<Visit> findVisitHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, int limit) throws DataAccessException;
+	int archiveVisits(LocalDate before, int batchSize) throws DataAccessException;
 	void saveVisit(Visit visit) throws DataAccessException;
 	void deleteVisit(Visit visit) throws DataAccessException;
 	Vet findVetById(int id) throws DataAccessException;
+	Vet findVetForUpdate(int id) throws DataAccessException;
 	Collection<Vet> findVets() throws DataAccessException;
 	Collection<Vet> findAllVets() throws DataAccessException;
+	Vet findVetById(int id, Set<String> properties) throws DataAccessException;
+	List<Vet> findVetsByIds(Collection<Integer> ids) throws DataAccessException;
+	List<Vet> findVetsByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+	Collection<Vet> findAllVets(Set<String> properties) throws DataAccessException;
 	void saveVet(Vet vet) throws DataAccessException;
 	void deleteVet(Vet vet) throws DataAccessException;
 	Owner findOwnerById(int id) throws DataAccessException;
+	Owner findOwnerForUpdate(int id) throws DataAccessException;
+	Owner findOwnerById(int id, int visitLimit) throws DataAccessException;
+	OwnerDashboard findOwnerDashboard(int ownerId, int visitLimit, boolean withVets) throws DataAccessException;
 	Collection<Owner> findAllOwners() throws DataAccessException;
+	Collection<Owner> findAllOwners(int visitLimit) throws DataAccessException;
 	void saveOwner(Owner owner) throws DataAccessException;
 	void deleteOwner(Owner owner) throws DataAccessException;
 	Collection<Owner> findOwnerByLastName(String lastName) throws DataAccessException;
+	Collection<Owner> findOwnerByLastName(String lastName, int visitLimit) throws DataAccessException;
+	Owner findOwnerById(int id, Set<String> properties) throws DataAccessException;
+	List<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException;
+	List<Owner> findOwnersByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException;
+	List<Owner> findOwnersByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException;
+	Collection<Owner> findAllOwners(Set<String> properties) throws DataAccessException;
+	Collection<Owner> findOwnerByLastName(String lastName, Set<String> properties) throws DataAccessException;
 
 	PetType findPetTypeById(int petTypeId);
 	Collection<PetType> findAllPetTypes() throws DataAccessException;
@@ -15,18 +15,25 @@
  */
 package org.springframework.samples.petclinic.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.*;
 import org.springframework.samples.petclinic.repository.*;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -37,7 +44,7 @@ import java.util.function.Supplier;
  * @author Vitaliy Fedoriv
  */
 @Service
-public class ClinicServiceImpl implements ClinicService {
+public class ClinicServiceImpl implements ClinicService, DisposableBean {
 
     private final PetRepository petRepository;
     private final VetRepository vetRepository;
@@ -45,6 +52,10 @@ public class ClinicServiceImpl implements ClinicService {
     private final VisitRepository visitRepository;
     private final SpecialtyRepository specialtyRepository;
     private final PetTypeRepository petTypeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<OwnerLookup, Owner> ownerLookups;
+    private final SingleFlight<Integer, Vet> vetLookups;
+    private final ConcurrentLoads dashboardLoads;
 
     @Autowired
     public ClinicServiceImpl(
@@ -53,13 +64,27 @@ public class ClinicServiceImpl implements ClinicService {
         OwnerRepository ownerRepository,
         VisitRepository visitRepository,
         SpecialtyRepository specialtyRepository,
-        PetTypeRepository petTypeRepository) {
+        PetTypeRepository petTypeRepository,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${petclinic.dashboard.concurrency:8}") int dashboardConcurrency,
+        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.petRepository = petRepository;
         this.vetRepository = vetRepository;
         this.ownerRepository = ownerRepository;
         this.visitRepository = visitRepository;
         this.specialtyRepository = specialtyRepository;
         this.petTypeRepository = petTypeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ownerLookups = new SingleFlight<>("owner", meterRegistry);
+        this.vetLookups = new SingleFlight<>("vet", meterRegistry);
+        this.dashboardLoads = new ConcurrentLoads("dashboard", dashboardConcurrency, virtualThreads);
+    }
+
+    @Override
+    public void destroy() {
+        this.dashboardLoads.shutdown();
     }
 
     @Override
@@ -68,6 +93,18 @@ public class ClinicServiceImpl implements ClinicService {
         return petRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Pet> findAllPets(int visitLimit) throws DataAccessException {
+        return petRepository.findAll(visitLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Pet> findAllPets(Set<String> properties) throws DataAccessException {
+        return petRepository.findAll(properties);
+    }
+
     @Override
     @Transactional
     public void deletePet(Pet pet) throws DataAccessException {
@@ -77,7 +114,7 @@ public class ClinicServiceImpl implements ClinicService {
     @Override
     @Transactional(readOnly = true)
     public Visit findVisitById(int visitId) throws DataAccessException {
-        return findEntityById(() -> visitRepository.findById(visitId));
+        return visitRepository.findById(visitId).orElse(null);
     }
 
     @Override
@@ -86,6 +123,33 @@ public class ClinicServiceImpl implements ClinicService {
         return visitRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Visit> findVisitsByDateRange(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+                                             int limit) throws DataAccessException {
+        return visitRepository.findByDateRange(from, to, afterDate, afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Visit> findVisitsByPetIdAndDateRange(int petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                                     Integer afterId, int limit) throws DataAccessException {
+        return visitRepository.findByPetIdAndDateRange(petId, from, to, afterDate, afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Visit> findVisitHistoryByPetId(int petId, LocalDate from, LocalDate to, LocalDate afterDate,
+                                               Integer afterId, int limit) throws DataAccessException {
+        return visitRepository.findHistoryByPetId(petId, from, to, afterDate, afterId, limit);
+    }
+
+    @Override
+    @Transactional
+    public int archiveVisits(LocalDate before, int batchSize) throws DataAccessException {
+        return visitRepository.archive(before, batchSize);
+    }
+
     @Override
     @Transactional
     public void deleteVisit(Visit visit) throws DataAccessException {
@@ -93,9 +157,17 @@ public class ClinicServiceImpl implements ClinicService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Vet findVetById(int id) throws DataAccessException {
-        return findEntityById(() -> vetRepository.findById(id));
+        return findCoalesced(vetLookups, id, () -> vetRepository.findById(id).orElse(null));
+    }
+
+    /**
+     * Loads the vet without coalescing, so that the caller gets an instance of its own to change.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Vet findVetForUpdate(int id) throws DataAccessException {
+        return vetRepository.findById(id).orElse(null);
     }
 
     @Override
@@ -104,6 +176,30 @@ public class ClinicServiceImpl implements ClinicService {
         return vetRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Vet findVetById(int id, Set<String> properties) throws DataAccessException {
+        return vetRepository.findById(id, properties).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Vet> findVetsByIds(Collection<Integer> ids) throws DataAccessException {
+        return vetRepository.findByIds(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Vet> findVetsByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+        return vetRepository.findByIds(ids, properties);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Vet> findAllVets(Set<String> properties) throws DataAccessException {
+        return vetRepository.findAll(properties);
+    }
+
     @Override
     @Transactional
     public void saveVet(Vet vet) throws DataAccessException {
@@ -122,6 +218,18 @@ public class ClinicServiceImpl implements ClinicService {
         return ownerRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Owner> findAllOwners(int visitLimit) throws DataAccessException {
+        return ownerRepository.findAll(visitLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Owner> findAllOwners(Set<String> properties) throws DataAccessException {
+        return ownerRepository.findAll(properties);
+    }
+
     @Override
     @Transactional
     public void deleteOwner(Owner owner) throws DataAccessException {
@@ -131,7 +239,7 @@ public class ClinicServiceImpl implements ClinicService {
     @Override
     @Transactional(readOnly = true)
     public PetType findPetTypeById(int petTypeId) {
-        return findEntityById(() -> petTypeRepository.findById(petTypeId));
+        return petTypeRepository.findById(petTypeId).orElse(null);
     }
 
     @Override
@@ -155,7 +263,7 @@ public class ClinicServiceImpl implements ClinicService {
     @Override
     @Transactional(readOnly = true)
     public Specialty findSpecialtyById(int specialtyId) {
-        return findEntityById(() -> specialtyRepository.findById(specialtyId));
+        return specialtyRepository.findById(specialtyId).orElse(null);
     }
 
     @Override
@@ -183,15 +291,116 @@ public class ClinicServiceImpl implements ClinicService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Owner findOwnerById(int id) throws DataAccessException {
-        return findEntityById(() -> ownerRepository.findById(id));
+        return findCoalesced(ownerLookups, new OwnerLookup(id, OwnerLookup.ALL_VISITS),
+            () -> ownerRepository.findById(id).orElse(null));
+    }
+
+    /**
+     * Loads the owner without coalescing, so that the caller gets an instance of its own to change.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Owner findOwnerForUpdate(int id) throws DataAccessException {
+        return ownerRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    public Owner findOwnerById(int id, int visitLimit) throws DataAccessException {
+        return findCoalesced(ownerLookups, new OwnerLookup(id, visitLimit),
+            () -> ownerRepository.findById(id, visitLimit).orElse(null));
+    }
+
+    /**
+     * Loads the owner, the pet types, the vets and the specialties concurrently, each in its own read-only
+     * transaction. Callers already inside a transaction load them one after the other through it, as they may have
+     * pending changes. Without <code>withVets</code>, the vets and the specialties are neither loaded nor returned.
+     */
+    @Override
+    public OwnerDashboard findOwnerDashboard(int ownerId, int visitLimit, boolean withVets) throws DataAccessException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Owner owner = findOwnerById(ownerId, visitLimit);
+            if (owner == null) {
+                return null;
+            }
+            return withVets
+                ? new OwnerDashboard(owner, findAllPetTypes(), findAllVets(), findAllSpecialties())
+                : new OwnerDashboard(owner, findAllPetTypes(), List.of(), List.of());
+        }
+        CompletableFuture<Owner> owner = dashboardLoads.submit(() -> findOwnerById(ownerId, visitLimit));
+        CompletableFuture<Collection<PetType>> petTypes = dashboardLoads.submit(
+            () -> readOnlyTransaction.execute(status -> petTypeRepository.findAll()));
+        CompletableFuture<Collection<Vet>> vets = withVets
+            ? dashboardLoads.submit(() -> readOnlyTransaction.execute(status -> vetRepository.findAll()))
+            : CompletableFuture.completedFuture(List.of());
+        CompletableFuture<Collection<Specialty>> specialties = withVets
+            ? dashboardLoads.submit(() -> readOnlyTransaction.execute(status -> specialtyRepository.findAll()))
+            : CompletableFuture.completedFuture(List.of());
+        if (ConcurrentLoads.join(owner) == null) {
+            return null;
+        }
+        return new OwnerDashboard(owner.join(), ConcurrentLoads.join(petTypes), ConcurrentLoads.join(vets),
+            ConcurrentLoads.join(specialties));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Owner findOwnerById(int id, Set<String> properties) throws DataAccessException {
+        return ownerRepository.findById(id, properties).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Owner> findOwnersByIds(Collection<Integer> ids) throws DataAccessException {
+        return ownerRepository.findByIds(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Owner> findOwnersByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException {
+        return ownerRepository.findByIds(ids, visitLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Owner> findOwnersByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+        return ownerRepository.findByIds(ids, properties);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Pet findPetById(int id) throws DataAccessException {
-        return findEntityById(() -> petRepository.findById(id));
+        return petRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Pet findPetById(int id, int visitLimit) throws DataAccessException {
+        return petRepository.findById(id, visitLimit).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Pet findPetById(int id, Set<String> properties) throws DataAccessException {
+        return petRepository.findById(id, properties).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pet> findPetsByIds(Collection<Integer> ids) throws DataAccessException {
+        return petRepository.findByIds(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pet> findPetsByIds(Collection<Integer> ids, int visitLimit) throws DataAccessException {
+        return petRepository.findByIds(ids, visitLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pet> findPetsByIds(Collection<Integer> ids, Set<String> properties) throws DataAccessException {
+        return petRepository.findByIds(ids, properties);
     }
 
     @Override
@@ -227,6 +436,18 @@ public class ClinicServiceImpl implements ClinicService {
         return ownerRepository.findByLastName(lastName);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Owner> findOwnerByLastName(String lastName, int visitLimit) throws DataAccessException {
+        return ownerRepository.findByLastName(lastName, visitLimit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Owner> findOwnerByLastName(String lastName, Set<String> properties) throws DataAccessException {
+        return ownerRepository.findByLastName(lastName, properties);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Collection<Visit> findVisitsByPetId(int petId) {
@@ -236,16 +457,35 @@ public class ClinicServiceImpl implements ClinicService {
     @Override
     @Transactional(readOnly = true)
     public List<Specialty> findSpecialtiesByNameIn(Set<String> names) {
-        return findEntityById(() -> specialtyRepository.findSpecialtiesByNameIn(names));
+        return specialtyRepository.findSpecialtiesByNameIn(names);
     }
 
-    private <T> T findEntityById(Supplier<T> supplier) {
-        try {
+    /**
+     * Runs the lookup in its own read-only transaction, shared with the concurrent callers asking for the same id.
+     * The transaction is only started by the caller running the load, so the waiting ones do not hold a connection.
+     * Callers already inside a transaction read through it, as they may have pending changes to the entity, and callers
+     * whose session sticks to the primary load on their own, as the shared load may read from the replica.
+     * <p>
+     * The coalesced callers share the loaded entity, which must therefore not be changed: callers about to update or
+     * delete it load it through {@link #findOwnerForUpdate(int)} or {@link #findVetForUpdate(int)} instead.
+     */
+    private <K, T> T findCoalesced(SingleFlight<K, T> lookups, K key, Supplier<T> supplier) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
             return supplier.get();
-        } catch (ObjectRetrievalFailureException | EmptyResultDataAccessException e) {
-            // Just ignore not found exceptions for Jdbc/Jpa realization
-            return null;
         }
+        if (ReplicaRoutingDataSource.isStickToPrimary()) {
+            return readOnlyTransaction.execute(status -> supplier.get());
+        }
+        return lookups.load(key, () -> readOnlyTransaction.execute(status -> supplier.get()));
+    }
+
+    /**
+     * Owner lookups are only coalesced with the ones loading as many visits per pet.
+     */
+    private record OwnerLookup(int id, int visitLimit) {
+
+        static final int ALL_VISITS = -1;
+
     }
 
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.samples.petclinic.util.SqlStatistics;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Runs independent loads concurrently, at most <code>concurrency</code> of them at once across all callers, so that
+ * they never hold more connections than that. The loads run on virtual threads when <code>virtualThreads</code> is
+ * set on Java 21 or later, as with <code>spring.threads.virtual.enabled</code>, on a fixed pool of platform threads
+ * otherwise.
+ * <p>
+ * A load runs with the SQL statistics and the replica routing session of the caller, as if the caller ran it.
+ */
+class ConcurrentLoads {
+
+    private final AsyncTaskExecutor executor;
+
+    private final Runnable shutdown;
+
+    ConcurrentLoads(String name, int concurrency, boolean virtualThreads) {
+        TaskDecorator propagation = task -> ReplicaRoutingDataSource.propagate(SqlStatistics.propagate(task));
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(name + "-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            executor.setTaskDecorator(propagation);
+            this.executor = executor;
+            this.shutdown = executor::close;
+        } else {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix(name + "-");
+            executor.setCorePoolSize(concurrency);
+            executor.setMaxPoolSize(concurrency);
+            executor.setDaemon(true);
+            executor.setTaskDecorator(propagation);
+            executor.initialize();
+            this.executor = executor;
+            this.shutdown = executor::shutdown;
+        }
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(loader, this.executor);
+    }
+
+    /**
+     * Wait for the load and return its result, or rethrow what it threw, e.g. a DataAccessException.
+     */
+    static <T> T join(CompletableFuture<T> load) {
+        try {
+            return load.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    void shutdown() {
+        this.shutdown.run();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Merges concurrent loads of the same key into a single in-flight call: the first caller runs the loader,
+ * callers arriving while it is running wait for its result instead of loading the key again.
+ * <p>
+ * Nothing is cached once the load completes; the next call for the key starts a new load. As with
+ * {@code @Cacheable}, the coalesced callers receive the same instance.
+ * <p>
+ * Calls are counted in the <code>petclinic.lookups</code> counter, tagged with the lookup name and with
+ * <code>result=loaded</code> or <code>result=coalesced</code>.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loaded;
+
+    private final Counter coalesced;
+
+    SingleFlight(String name, MeterRegistry registry) {
+        this.loaded = Counter.builder("petclinic.lookups")
+            .description("Entity lookups, by whether they ran a load or joined one already in flight")
+            .tag("lookup", name)
+            .tag("result", "loaded")
+            .register(registry);
+        this.coalesced = Counter.builder("petclinic.lookups")
+            .description("Entity lookups, by whether they ran a load or joined one already in flight")
+            .tag("lookup", name)
+            .tag("result", "coalesced")
+            .register(registry);
+    }
+
+    V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            this.coalesced.increment();
+            return join(existing);
+        }
+        this.loaded.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    private V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            // rethrow what the loading caller got, e.g. a DataAccessException
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+}
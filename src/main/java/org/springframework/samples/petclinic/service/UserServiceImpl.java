@@ -1,11 +1,15 @@
 package org.springframework.samples.petclinic.service;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.model.Role;
 import org.springframework.samples.petclinic.repository.UserRepository;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -13,6 +17,10 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // only present when security is enabled
+    @Autowired
+    private ObjectProvider<UserCache> userCache;
+
     @Override
     @Transactional
     public void saveUser(User user) {
@@ -32,5 +40,25 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.save(user);
+        evictFromUserCache(user.getUsername());
+    }
+
+    /**
+     * Drop the user from the authentication cache once the transaction commits, so that the next request
+     * authenticates against the saved password and roles.
+     */
+    private void evictFromUserCache(String username) {
+        this.userCache.ifAvailable(cache -> {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.removeUserFromCache(username);
+                    }
+                });
+            } else {
+                cache.removeUserFromCache(username);
+            }
+        });
     }
 }
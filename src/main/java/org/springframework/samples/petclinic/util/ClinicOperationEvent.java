@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event for a call to the <code>ClinicService</code> or to a repository.
+ *
+ * @see FlightRecorderAspect
+ */
+@Name(ClinicOperationEvent.NAME)
+@Label("Clinic Operation")
+@Category({"Petclinic"})
+@Description("A ClinicService or repository call")
+class ClinicOperationEvent extends Event {
+
+    static final String NAME = "org.springframework.samples.petclinic.ClinicOperation";
+
+    @Label("Method")
+    @Description("Called class and method, e.g. ClinicServiceImpl.findOwnerById")
+    String method;
+
+    @Label("Entity Type")
+    @Description("Entity the call reads or writes, if it can be told from its signature")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id of the entity the call reads or writes, 0 if it is not given one")
+    int entityId;
+
+    @Label("Rows")
+    @Description("Number of entities returned")
+    int rows;
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Keeps the gzip-compressed bodies of reference data responses, e.g. <code>/api/pettypes</code>, so that they are
+ * neither rebuilt nor recompressed for every request.
+ * <p>
+ * Only <code>GET</code> requests for one of the given paths from clients accepting gzip are served from the cache,
+ * keyed by path, query string, <code>Accept</code> header and the authorities of the caller. Successful <code>200</code> responses of at least
+ * <code>minResponseSize</code> bytes are compressed once, at the highest level since the cost is amortized, and
+ * stored. Any other successful request, i.e. a write, clears the cache; the time to live of the cache bounds the
+ * staleness from writes to other instances.
+ * <p>
+ * A write also bumps a generation counter, which tags the entries with the generation their request started in. An
+ * entry from an earlier generation, put by a request that may have read the data before the write committed, is
+ * neither stored once the generation changed nor served.
+ * <p>
+ * Spring Security only authenticates the requests; the roles are checked by the <code>@PreAuthorize</code> of the
+ * controllers, which a cached response bypasses. Keying the entries by the granted authorities keeps a response
+ * rendered for one set of roles from being served to a caller with other roles, so this filter has to be ordered after
+ * Spring Security.
+ */
+public class CompressedResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final Set<String> paths;
+
+    private final long minResponseSize;
+
+    private final Cache<String, CompressedResponse> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public CompressedResponseCacheFilter(Collection<String> paths, long minResponseSize,
+                                         Cache<String, CompressedResponse> cache) {
+        this.paths = Set.copyOf(paths);
+        this.minResponseSize = minResponseSize;
+        this.cache = cache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            if (!HttpMethod.HEAD.matches(request.getMethod()) && !HttpMethod.OPTIONS.matches(request.getMethod())
+                && response.getStatus() < 300) {
+                this.generation.incrementAndGet();
+                this.cache.invalidateAll();
+            }
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!this.paths.contains(path)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String query = request.getQueryString();
+        String key = (query != null ? path + '?' + query : path) + ' ' + request.getHeader(HttpHeaders.ACCEPT)
+            + ' ' + authorities();
+        long generation = this.generation.get();
+        CompressedResponse cached = this.cache.getIfPresent(key);
+        if (cached != null && cached.generation() == generation) {
+            write(response, cached);
+            return;
+        }
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, responseWrapper);
+        if (responseWrapper.getStatus() != HttpServletResponse.SC_OK
+            || responseWrapper.getContentSize() < this.minResponseSize
+            || responseWrapper.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            responseWrapper.copyBodyToResponse();
+            return;
+        }
+        CompressedResponse compressed = new CompressedResponse(responseWrapper.getContentType(),
+            gzip(responseWrapper.getContentAsByteArray()), generation);
+        if (this.generation.get() == generation) {
+            this.cache.put(key, compressed);
+        }
+        write(response, compressed);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            if (GZIP.equalsIgnoreCase(parameters[0].trim())) {
+                return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the sorted authorities granted to the caller, or an empty string for an unauthenticated request
+     */
+    private static String authorities() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return "";
+        }
+        return authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .sorted()
+            .collect(Collectors.joining(","));
+    }
+
+    private static void write(HttpServletResponse response, CompressedResponse compressed) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(compressed.contentType());
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        response.setContentLength(compressed.body().length);
+        response.getOutputStream().write(compressed.body());
+    }
+
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes) {
+            {
+                this.def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A compressed response body with its content type, and the generation of the cache it was rendered in.
+     */
+    public record CompressedResponse(String contentType, byte[] body, long generation) {
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.util.StringUtils;
+
+/**
+ * Loads entities with only some of their properties, by a JPA query selecting just these rather than the entities.
+ * <p>
+ * The loaded entities are not managed: they are built from the selected values, their id and the given properties,
+ * which may be nested in a to-one association, <code>owner.id</code>. Their other properties and collections are left
+ * empty.
+ */
+public abstract class EntityProjection {
+
+    /**
+     * @param properties the properties to load along with the id
+     * @param clauses    the JPQL following <code>FROM Entity entity</code>, where the alias is the uncapitalized name of
+     *                   the entity, <code>WHERE owner.lastName LIKE :lastName</code>, or an empty string
+     */
+    public static <T extends BaseEntity> List<T> load(EntityManager em, Class<T> type, Set<String> properties,
+                                                      String clauses, Map<String, ?> parameters) {
+        return load(em, type, properties, Map.of(), clauses, parameters);
+    }
+
+    /**
+     * Like {@link #load(EntityManager, Class, Set, String, Map)}, selecting the properties not mapped to a column, a
+     * count, with the given expressions.
+     *
+     * @param expressions the JPQL expressions selecting some of the properties, by property name
+     */
+    public static <T extends BaseEntity> List<T> load(EntityManager em, Class<T> type, Set<String> properties,
+                                                      Map<String, String> expressions, String clauses,
+                                                      Map<String, ?> parameters) {
+        String alias = StringUtils.uncapitalize(type.getSimpleName());
+        List<String> selected = properties.stream().filter(property -> !property.equals("id")).toList();
+        StringBuilder jpql = new StringBuilder("SELECT ").append(alias).append(".id AS id");
+        for (String property : selected) {
+            String expression = expressions.getOrDefault(property, alias + '.' + property);
+            jpql.append(", ").append(expression).append(" AS ").append(column(property));
+        }
+        jpql.append(" FROM ").append(type.getSimpleName()).append(' ').append(alias);
+        if (!clauses.isEmpty()) {
+            jpql.append(' ').append(clauses);
+        }
+        TypedQuery<Tuple> query = em.createQuery(jpql.toString(), Tuple.class);
+        parameters.forEach(query::setParameter);
+        List<T> entities = new ArrayList<>();
+        for (Tuple tuple : query.getResultList()) {
+            T entity = BeanUtils.instantiateClass(type);
+            entity.setId(tuple.get("id", Integer.class));
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+            wrapper.setAutoGrowNestedPaths(true);
+            for (String property : selected) {
+                wrapper.setPropertyValue(property, tuple.get(column(property)));
+            }
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * Loads the entities with the given ids, like {@link #load}, with one query per chunk of ids.
+     *
+     * @return the entities found, in the order of the ids
+     */
+    public static <T extends BaseEntity> List<T> loadByIds(EntityManager em, Class<T> type, Set<String> properties,
+                                                           Collection<Integer> ids) {
+        return loadByIds(em, type, properties, Map.of(), ids);
+    }
+
+    /**
+     * Loads the entities with the given ids, like {@link #load(EntityManager, Class, Set, Map, String, Map)}.
+     */
+    public static <T extends BaseEntity> List<T> loadByIds(EntityManager em, Class<T> type, Set<String> properties,
+                                                           Map<String, String> expressions, Collection<Integer> ids) {
+        String alias = StringUtils.uncapitalize(type.getSimpleName());
+        List<T> entities = new ArrayList<>();
+        for (List<Integer> chunk : EntityUtils.chunk(ids, EntityUtils.IN_CHUNK_SIZE)) {
+            entities.addAll(load(em, type, properties, expressions, "WHERE " + alias + ".id IN :ids", Map.of("ids", chunk)));
+        }
+        return EntityUtils.orderByIds(entities, ids);
+    }
+
+    private static String column(String property) {
+        return property.replace('.', '_');
+    }
+
+}
@@ -16,7 +16,11 @@
 
 package org.springframework.samples.petclinic.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.samples.petclinic.model.BaseEntity;
@@ -32,6 +36,11 @@ import org.springframework.samples.petclinic.model.BaseEntity;
  */
 public abstract class EntityUtils {
 
+    /**
+     * The number of ids bound to an <code>IN</code> query, well below the limits of the supported databases.
+     */
+    public static final int IN_CHUNK_SIZE = 500;
+
     /**
      * Look up the entity of the given class with the given id in the given collection.
      *
@@ -51,4 +60,43 @@ public abstract class EntityUtils {
         throw new ObjectRetrievalFailureException(entityClass, entityId);
     }
 
+    /**
+     * Split the given ids into chunks of at most the given size, for <code>IN</code> queries whose number of
+     * parameters is bounded by the database.
+     *
+     * @param ids  the ids to split
+     * @param size the maximum size of a chunk, usually {@link #IN_CHUNK_SIZE}
+     * @return the chunks, none if there are no ids
+     */
+    public static List<List<Integer>> chunk(Collection<Integer> ids, int size) {
+        List<Integer> all = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += size) {
+            chunks.add(all.subList(from, Math.min(from + size, all.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Order the given entities like the given ids, leaving out the ids of no entity.
+     *
+     * @param entities the entities to order
+     * @param ids      the ids in the wanted order
+     * @return the entities with the given ids, in the order of the ids
+     */
+    public static <T extends BaseEntity> List<T> orderByIds(Collection<T> entities, Collection<Integer> ids) {
+        Map<Integer, T> entitiesById = new HashMap<>();
+        for (T entity : entities) {
+            entitiesById.put(entity.getId(), entity);
+        }
+        List<T> ordered = new ArrayList<>();
+        for (Integer id : ids) {
+            T entity = entitiesById.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.ResolvableType;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.util.StringUtils;
+
+/**
+ * Aspect that emits a {@link ClinicOperationEvent} around every <code>ClinicService</code> and repository call, so that
+ * a JDK Flight Recorder recording shows slow calls next to GC pauses, lock contention and socket reads.
+ * <p>
+ * The event fields are only filled in for events that will be committed, i.e. when the event is enabled in the
+ * recording and the call exceeds its threshold (see <code>jfr/petclinic.jfc</code>).
+ *
+ * @see ClinicOperationEvent
+ */
+@Aspect
+public class FlightRecorderAspect {
+
+    @Around("execution(* org.springframework.samples.petclinic.service.ClinicService+.*(..))"
+        + " || execution(* org.springframework.samples.petclinic.repository.*Repository+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        ClinicOperationEvent event = new ClinicOperationEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                Method method = signature.getMethod();
+                event.method = joinPoint.getTarget().getClass().getSimpleName() + "." + method.getName();
+                event.entityType = entityType(method);
+                event.entityId = entityId(event.entityType, signature.getParameterNames(), joinPoint.getArgs());
+                event.rows = rows(result);
+                event.commit();
+            }
+        }
+    }
+
+    private static String entityType(Method method) {
+        ResolvableType returnType = ResolvableType.forMethodReturnType(method);
+        if (Collection.class.isAssignableFrom(returnType.toClass())) {
+            returnType = returnType.asCollection().getGeneric();
+        } else if (Optional.class.equals(returnType.toClass())) {
+            returnType = returnType.getGeneric();
+        }
+        if (BaseEntity.class.isAssignableFrom(returnType.toClass())) {
+            return returnType.toClass().getSimpleName();
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (BaseEntity.class.isAssignableFrom(parameterType)) {
+                return parameterType.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The id is taken from an argument named <code>id</code> or after the entity type, <code>ownerId</code> for an
+     * <code>Owner</code>, or from the entity passed in. Other integer arguments, such as a limit, a keyset cursor or the
+     * id of an associated entity, are not ids of the entity the call is about.
+     */
+    private static int entityId(String entityType, String[] parameterNames, Object[] args) {
+        String entityIdName = entityType != null ? StringUtils.uncapitalize(entityType) + "Id" : null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Integer id && parameterNames != null
+                && (parameterNames[i].equals("id") || parameterNames[i].equals(entityIdName))) {
+                return id;
+            }
+            if (args[i] instanceof BaseEntity entity && entity.getId() != null) {
+                return entity.getId();
+            }
+        }
+        return 0;
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return result instanceof BaseEntity ? 1 : 0;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+
+/**
+ * Runs JPA loads with the {@link Pet#RECENT_VISITS} filter enabled, so that the database only returns the most recent
+ * visits of the loaded pets, and counts all the visits of these pets with one query per chunk of pets.
+ * <p>
+ * The filter applies to the visits read by the load; pets already in the persistence context keep the visits they
+ * were loaded with.
+ */
+public abstract class RecentVisitsFilter {
+
+    /**
+     * JPQL expression counting all the visits of the <code>pet</code>, for the projections loading the visit count, see
+     * {@link EntityProjection#load(EntityManager, Class, Set, Map, String, Map)}.
+     */
+    public static final String VISIT_COUNT = "(SELECT COUNT(counted) FROM Visit counted WHERE counted.pet = pet)";
+
+    /**
+     * @param loader loads an owner, a pet, or an {@link Optional} or a collection of these
+     * @see Pet#getVisitCount()
+     */
+    public static <T> T load(EntityManager em, int visitLimit, Supplier<T> loader) {
+        Session session = em.unwrap(Session.class);
+        session.enableFilter(Pet.RECENT_VISITS).setParameter("visitLimit", visitLimit);
+        T loaded;
+        try {
+            loaded = loader.get();
+        } finally {
+            session.disableFilter(Pet.RECENT_VISITS);
+        }
+        Map<Integer, Pet> pets = new HashMap<>();
+        collectPets(loaded, pets);
+        countVisits(em, pets);
+        return loaded;
+    }
+
+    private static void collectPets(Object loaded, Map<Integer, Pet> pets) {
+        if (loaded instanceof Optional<?> optional) {
+            optional.ifPresent(value -> collectPets(value, pets));
+        } else if (loaded instanceof Collection<?> collection) {
+            collection.forEach(value -> collectPets(value, pets));
+        } else if (loaded instanceof Owner owner) {
+            collectPets(owner.getPets(), pets);
+        } else if (loaded instanceof Pet pet) {
+            pets.put(pet.getId(), pet);
+        }
+    }
+
+    private static void countVisits(EntityManager em, Map<Integer, Pet> pets) {
+        pets.values().forEach(pet -> pet.setVisitCount(0));
+        for (List<Integer> chunk : EntityUtils.chunk(pets.keySet(), EntityUtils.IN_CHUNK_SIZE)) {
+            em.createQuery("SELECT visit.pet.id, COUNT(visit) FROM Visit visit WHERE visit.pet.id IN :ids GROUP BY visit.pet.id", Object[].class)
+                .setParameter("ids", chunk)
+                .getResultList()
+                .forEach(count -> pets.get((Integer) count[0]).setVisitCount(((Long) count[1]).intValue()));
+        }
+    }
+
+}
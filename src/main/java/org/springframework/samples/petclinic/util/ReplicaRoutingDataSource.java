@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * Reads fall back to the primary when
+ * <ul>
+ * <li>the last {@link #checkReplica() replica check} found the replica unreachable or lagging by more than
+ * <code>maxLag</code>, measured with the optional <code>lagQuery</code> returning the lag in seconds</li>
+ * <li>the current {@link #beginSession(boolean, Runnable) session} has written recently, so that it reads its own
+ * writes</li>
+ * </ul>
+ * The routing depends on the transaction being known when a connection is obtained, so this <code>DataSource</code> is
+ * to be used through a <code>LazyConnectionDataSourceProxy</code>, see {@link #lazy()}.
+ *
+ * @see ReplicaRoutingFilter
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final ThreadLocal<Session> SESSION = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private volatile boolean replicaAvailable = true;
+
+    private ScheduledExecutorService checks;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String lagQuery, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Start a session on the current thread.
+     *
+     * @param stickToPrimary whether the session wrote recently and reads from the primary
+     * @param onWrite        called once when the session first writes
+     */
+    public static void beginSession(boolean stickToPrimary, Runnable onWrite) {
+        SESSION.set(new Session(stickToPrimary, onWrite));
+    }
+
+    public static void endSession() {
+        SESSION.remove();
+    }
+
+    /**
+     * Whether the session of the current thread, if any, reads from the primary to see its own writes. Work shared
+     * between sessions, such as a coalesced lookup, must not be shared with such a session, as it may have read from
+     * the replica.
+     */
+    public static boolean isStickToPrimary() {
+        Session session = SESSION.get();
+        return session != null && session.stickToPrimary;
+    }
+
+    /**
+     * Wrap the given task so that it runs in the session of the current thread, if any, on another thread.
+     */
+    public static Runnable propagate(Runnable task) {
+        Session session = SESSION.get();
+        if (session == null) {
+            return task;
+        }
+        return () -> {
+            SESSION.set(session);
+            try {
+                task.run();
+            } finally {
+                SESSION.remove();
+            }
+        };
+    }
+
+    /**
+     * Wrap this <code>DataSource</code> so that connections are only obtained, and routed, on the first statement of a
+     * transaction. Closing the wrapper {@link #close() closes} this <code>DataSource</code>.
+     */
+    public DataSource lazy() {
+        class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+            ClosingLazyConnectionDataSourceProxy() {
+                super(ReplicaRoutingDataSource.this);
+            }
+
+            @Override
+            public void close() throws IOException {
+                ReplicaRoutingDataSource.this.close();
+            }
+        }
+        return new ClosingLazyConnectionDataSourceProxy();
+    }
+
+    /**
+     * {@link #checkReplica() Check the replica} every <code>interval</code>, on a background thread.
+     */
+    public synchronized void startChecks(Duration interval) {
+        if (this.checks == null) {
+            this.checks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.checks.scheduleWithFixedDelay(this::checkReplica, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the replica checks and close the primary and replica <code>DataSource</code>s.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.checks != null) {
+            this.checks.shutdownNow();
+            this.checks = null;
+        }
+        for (DataSource dataSource : new DataSource[] {this.primary, this.replica}) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public DataSource getPrimary() {
+        return this.primary;
+    }
+
+    public DataSource getReplica() {
+        return this.replica;
+    }
+
+    public boolean isReplicaAvailable() {
+        return this.replicaAvailable;
+    }
+
+    /**
+     * Check whether the replica is reachable and, given a lag query, not lagging behind the primary by more than the
+     * maximum lag. Reads are routed to the primary until the next check succeeds.
+     */
+    public void checkReplica() {
+        try (Connection connection = this.replica.getConnection()) {
+            if (this.lagQuery == null || this.lagQuery.isBlank()) {
+                this.replicaAvailable = connection.isValid(1);
+                return;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(this.lagQuery)) {
+                this.replicaAvailable = resultSet.next()
+                    && resultSet.getDouble(1) * 1000 <= this.maxLag.toMillis();
+            }
+        } catch (SQLException ex) {
+            this.replicaAvailable = false;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Session session = SESSION.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // statements outside of a transaction, e.g. the user lookups of authentication, are not taken as writes
+            if (session != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                session.wrote();
+            }
+            return Target.PRIMARY;
+        }
+        if (!this.replicaAvailable || (session != null && session.stickToPrimary)) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * Shared by the threads a request {@link #propagate(Runnable) hands work to}.
+     */
+    private static class Session {
+
+        private volatile boolean stickToPrimary;
+
+        private Runnable onWrite;
+
+        Session(boolean stickToPrimary, Runnable onWrite) {
+            this.stickToPrimary = stickToPrimary;
+            this.onWrite = onWrite;
+        }
+
+        synchronized void wrote() {
+            this.stickToPrimary = true;
+            if (this.onWrite != null) {
+                this.onWrite.run();
+                this.onWrite = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Accounts for the SQL work done by each HTTP request, using the {@link SqlStatistics} of the request thread.
+ * <p>
+ * Requests handled by a controller method are recorded in the <code>petclinic.http.sql.statements</code> and
+ * <code>petclinic.http.sql.rows</code> distribution summaries and the <code>petclinic.http.sql.time</code> timer,
+ * tagged with the handler, e.g. <code>handler=OwnerRestController.listOwners</code>.
+ * <p>
+ * When <code>serverTiming</code> is enabled the figures are also returned in a <code>Server-Timing</code> response
+ * header. The response body is then buffered until the request completes, so that the header can still be added.
+ *
+ * @see SqlStatistics
+ */
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final MeterRegistry registry;
+
+    private final boolean serverTiming;
+
+    public SqlAccountingFilter(MeterRegistry registry, boolean serverTiming) {
+        this.registry = registry;
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            if (this.serverTiming) {
+                ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+                filterChain.doFilter(request, responseWrapper);
+                responseWrapper.setHeader(SERVER_TIMING_HEADER, serverTiming(statistics));
+                responseWrapper.copyBodyToResponse();
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            SqlStatistics.stop();
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+            return;
+        }
+        String handlerName = handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        DistributionSummary.builder("petclinic.http.sql.statements")
+            .description("JDBC statements executed per HTTP request")
+            .baseUnit("statements")
+            .tag("handler", handlerName)
+            .register(this.registry)
+            .record(statistics.getStatements());
+        DistributionSummary.builder("petclinic.http.sql.rows")
+            .description("Rows fetched per HTTP request")
+            .baseUnit("rows")
+            .tag("handler", handlerName)
+            .register(this.registry)
+            .record(statistics.getRows());
+        Timer.builder("petclinic.http.sql.time")
+            .description("Time spent executing JDBC statements per HTTP request")
+            .tag("handler", handlerName)
+            .register(this.registry)
+            .record(statistics.getExecutionNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    static String serverTiming(SqlStatistics statistics) {
+        return String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d statements, %d rows\"",
+            statistics.getExecutionNanos() / 1_000_000.0, statistics.getStatements(), statistics.getRows());
+    }
+
+}
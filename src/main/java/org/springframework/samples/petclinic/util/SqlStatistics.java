@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Accumulates the JDBC statements executed, the rows fetched and the time spent executing statements on the current
+ * thread, between {@link #start()} and {@link #stop()}.
+ * <p>
+ * The figures are gathered by a <code>DataSource</code> wrapped with {@link #instrument(String, DataSource)}; work done
+ * on a thread where no statistics were started is not recorded.
+ *
+ * @see SqlAccountingFilter
+ */
+public class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long executionNanos;
+
+    private long executionStarted;
+
+    /**
+     * Start accumulating statistics on the current thread, replacing any statistics already started.
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stop accumulating statistics on the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Wrap the given task so that the statements it executes on another thread are added to the statistics of the
+     * current thread, if any, once it completes. The current thread is expected not to execute statements until then.
+     */
+    public static Runnable propagate(Runnable task) {
+        SqlStatistics parent = CURRENT.get();
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            SqlStatistics statistics = start();
+            try {
+                task.run();
+            } finally {
+                stop();
+                parent.add(statistics);
+            }
+        };
+    }
+
+    /**
+     * Wrap the given <code>DataSource</code> so that the statements it executes are recorded in the statistics of
+     * the calling thread.
+     * <p>
+     * The rows are counted by the result set proxies alone: a method listener would be called back for every call on
+     * every connection, statement and result set.
+     */
+    public static DataSource instrument(String name, DataSource dataSource) {
+        return ProxyDataSourceBuilder.create(name, dataSource)
+            .listener(new StatementListener())
+            .proxyResultSet(RowCountingResultSet::new)
+            .build();
+    }
+
+    private synchronized void add(SqlStatistics statistics) {
+        this.statements += statistics.statements;
+        this.rows += statistics.rows;
+        this.executionNanos += statistics.executionNanos;
+    }
+
+    public synchronized int getStatements() {
+        return this.statements;
+    }
+
+    public synchronized long getRows() {
+        return this.rows;
+    }
+
+    public synchronized long getExecutionNanos() {
+        return this.executionNanos;
+    }
+
+    private static class StatementListener implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlStatistics statistics = CURRENT.get();
+            if (statistics != null) {
+                statistics.executionStarted = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlStatistics statistics = CURRENT.get();
+            if (statistics != null) {
+                // a batch is sent in one round trip and counts as one statement
+                statistics.statements++;
+                statistics.executionNanos += System.nanoTime() - statistics.executionStarted;
+            }
+        }
+    }
+
+    private static class RowCountingResultSet extends SimpleResultSetProxyLogic {
+
+        RowCountingResultSet(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            super(resultSet, connectionInfo, proxyConfig);
+        }
+
+        @Override
+        protected Object performProxyLogic(Object proxy, Method method, Object[] args,
+                                           MethodExecutionContext executionContext) throws Throwable {
+            Object result = super.performProxyLogic(proxy, method, args, executionContext);
+            if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                SqlStatistics statistics = CURRENT.get();
+                if (statistics != null) {
+                    statistics.rows++;
+                }
+            }
+            return result;
+        }
+    }
+
+}
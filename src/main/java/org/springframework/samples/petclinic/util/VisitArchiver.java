@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.util;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Scheduled job that moves the visits older than a retention period to the archive, in batches of one transaction
+ * each, so that the eagerly loaded visits of pets and owners are only the recent ones. The archived visits remain
+ * available through <code>ClinicService.findVisitHistoryByPetId</code>.
+ * <p>
+ * The number of visits moved is published as the <code>petclinic.visits.archived</code> counter.
+ */
+public class VisitArchiver {
+
+    private final ClinicService clinicService;
+
+    private final Period retention;
+
+    private final int batchSize;
+
+    private final Clock clock;
+
+    private final Counter archived;
+
+    public VisitArchiver(ClinicService clinicService, Period retention, int batchSize, Clock clock,
+                         MeterRegistry meterRegistry) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive, got " + batchSize);
+        }
+        this.clinicService = clinicService;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.clock = clock;
+        this.archived = Counter.builder("petclinic.visits.archived")
+            .description("Visits moved to the archive")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the number of visits moved to the archive
+     */
+    @Scheduled(cron = "${petclinic.visits.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        LocalDate before = LocalDate.now(this.clock).minus(this.retention);
+        int total = 0;
+        int moved;
+        do {
+            moved = this.clinicService.archiveVisits(before, this.batchSize);
+            this.archived.increment(moved);
+            total += moved;
+        } while (moved == this.batchSize);
+        return total;
+    }
+
+}
@@ -0,0 +1,9 @@
+-- visits older than petclinic.visits.archive.retention, moved out of visits by the archive job;
+-- no foreign key to pets, the repositories delete the archived visits of a deleted pet
+CREATE TABLE visits_archive (
+  id          INTEGER NOT NULL PRIMARY KEY,
+  pet_id      INTEGER NOT NULL,
+  visit_date  DATE NOT NULL,
+  description VARCHAR(255)
+);
+CREATE INDEX visits_archive_pet_id_visit_date ON visits_archive (pet_id, visit_date, id);
@@ -0,0 +1,4 @@
+-- visit date range queries, clinic-wide and per pet, ordered by date and id for keyset pagination;
+-- InnoDB drops the index it created for the pet_id foreign key, which the second one replaces
+CREATE INDEX visits_visit_date ON visits (visit_date, id) ALGORITHM=INPLACE LOCK=NONE;
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date, id) ALGORITHM=INPLACE LOCK=NONE;
@@ -0,0 +1,55 @@
+-- visits older than petclinic.visits.archive.retention, moved out of visits by the archive job;
+-- partitioned by year of visit, so the primary key includes visit_date, and without a foreign key to pets
+-- (InnoDB has none on partitioned tables) as the repositories delete the archived visits of a deleted pet
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id INT(4) UNSIGNED NOT NULL,
+  pet_id INT(4) UNSIGNED NOT NULL,
+  visit_date DATE NOT NULL,
+  description VARCHAR(255),
+  PRIMARY KEY (visit_date, id),
+  INDEX visits_archive_pet_id_visit_date (pet_id, visit_date, id)
+) engine=InnoDB
+PARTITION BY RANGE COLUMNS (visit_date) (
+  PARTITION p_before_2000 VALUES LESS THAN ('2000-01-01'),
+  PARTITION p2000 VALUES LESS THAN ('2001-01-01'),
+  PARTITION p2001 VALUES LESS THAN ('2002-01-01'),
+  PARTITION p2002 VALUES LESS THAN ('2003-01-01'),
+  PARTITION p2003 VALUES LESS THAN ('2004-01-01'),
+  PARTITION p2004 VALUES LESS THAN ('2005-01-01'),
+  PARTITION p2005 VALUES LESS THAN ('2006-01-01'),
+  PARTITION p2006 VALUES LESS THAN ('2007-01-01'),
+  PARTITION p2007 VALUES LESS THAN ('2008-01-01'),
+  PARTITION p2008 VALUES LESS THAN ('2009-01-01'),
+  PARTITION p2009 VALUES LESS THAN ('2010-01-01'),
+  PARTITION p2010 VALUES LESS THAN ('2011-01-01'),
+  PARTITION p2011 VALUES LESS THAN ('2012-01-01'),
+  PARTITION p2012 VALUES LESS THAN ('2013-01-01'),
+  PARTITION p2013 VALUES LESS THAN ('2014-01-01'),
+  PARTITION p2014 VALUES LESS THAN ('2015-01-01'),
+  PARTITION p2015 VALUES LESS THAN ('2016-01-01'),
+  PARTITION p2016 VALUES LESS THAN ('2017-01-01'),
+  PARTITION p2017 VALUES LESS THAN ('2018-01-01'),
+  PARTITION p2018 VALUES LESS THAN ('2019-01-01'),
+  PARTITION p2019 VALUES LESS THAN ('2020-01-01'),
+  PARTITION p2020 VALUES LESS THAN ('2021-01-01'),
+  PARTITION p2021 VALUES LESS THAN ('2022-01-01'),
+  PARTITION p2022 VALUES LESS THAN ('2023-01-01'),
+  PARTITION p2023 VALUES LESS THAN ('2024-01-01'),
+  PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+  PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+  PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+  PARTITION p2028 VALUES LESS THAN ('2029-01-01'),
+  PARTITION p2029 VALUES LESS THAN ('2030-01-01'),
+  PARTITION p2030 VALUES LESS THAN ('2031-01-01'),
+  PARTITION p2031 VALUES LESS THAN ('2032-01-01'),
+  PARTITION p2032 VALUES LESS THAN ('2033-01-01'),
+  PARTITION p2033 VALUES LESS THAN ('2034-01-01'),
+  PARTITION p2034 VALUES LESS THAN ('2035-01-01'),
+  PARTITION p2035 VALUES LESS THAN ('2036-01-01'),
+  PARTITION p2036 VALUES LESS THAN ('2037-01-01'),
+  PARTITION p2037 VALUES LESS THAN ('2038-01-01'),
+  PARTITION p2038 VALUES LESS THAN ('2039-01-01'),
+  PARTITION p2039 VALUES LESS THAN ('2040-01-01'),
+  PARTITION p_max VALUES LESS THAN (MAXVALUE)
+);
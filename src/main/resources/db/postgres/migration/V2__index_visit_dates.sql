@@ -0,0 +1,4 @@
+-- visit date range queries, clinic-wide and per pet, ordered by date and id for keyset pagination
+CREATE INDEX CONCURRENTLY visits_visit_date ON visits (visit_date, id);
+CREATE INDEX CONCURRENTLY visits_pet_id_visit_date ON visits (pet_id, visit_date, id);
+DROP INDEX CONCURRENTLY IF EXISTS visits_pet_id_idx;
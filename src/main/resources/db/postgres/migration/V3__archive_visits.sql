@@ -0,0 +1,21 @@
+-- visits older than petclinic.visits.archive.retention, moved out of visits by the archive job;
+-- partitioned by year of visit, so the primary key includes visit_date, and without a foreign key to pets
+-- as the repositories delete the archived visits of a deleted pet
+CREATE TABLE visits_archive (
+  id          INTEGER NOT NULL,
+  pet_id      INTEGER NOT NULL,
+  visit_date  DATE NOT NULL,
+  description VARCHAR(255),
+  PRIMARY KEY (visit_date, id)
+) PARTITION BY RANGE (visit_date);
+CREATE INDEX visits_archive_pet_id_visit_date ON visits_archive (pet_id, visit_date, id);
+
+CREATE TABLE visits_archive_before_2000 PARTITION OF visits_archive FOR VALUES FROM (MINVALUE) TO ('2000-01-01');
+DO $$
+BEGIN
+  FOR year IN 2000..2039 LOOP
+    EXECUTE format('CREATE TABLE visits_archive_%s PARTITION OF visits_archive FOR VALUES FROM (%L) TO (%L)',
+      year, make_date(year, 1, 1), make_date(year + 1, 1, 1));
+  END LOOP;
+END $$;
+CREATE TABLE visits_archive_default PARTITION OF visits_archive DEFAULT;
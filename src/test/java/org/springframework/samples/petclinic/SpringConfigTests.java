@@ -1,13 +1,32 @@
 package org.springframework.samples.petclinic;
 
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(classes = PetClinicApplication.class)
 class SpringConfigTests {
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     void contextLoads() {
         // Test the Spring configuration
     }
+
+    @Test
+    void shouldSerializeWithBlackbird() throws Exception {
+        assertThat(this.objectMapper.getRegisteredModuleIds()).contains(new BlackbirdModule().getTypeId());
+        VisitDto visit = new VisitDto().id(1).petId(7).date(LocalDate.of(2013, 1, 1)).description("rabies shot");
+        assertThat(this.objectMapper.writeValueAsString(visit))
+            .isEqualTo("{\"date\":\"2013-01-01\",\"description\":\"rabies shot\",\"id\":1,\"petId\":7}");
+    }
 }
@@ -0,0 +1,191 @@
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Load test of the REST API: boots the application on a free port with a {@link LoadTestDataset generated dataset}
+ * and sends it an open-model mix of {@link LoadTestOperation requests}, i.e. requests arrive at the target rate,
+ * with exponentially distributed gaps, whether or not the previous ones completed. The {@link LoadTestReport} is
+ * written as JSON and printed, side by side with a baseline report if given.
+ * <p>
+ * The application runs with its own <code>application.properties</code>, not those of the tests, and with security
+ * disabled. It shares the JVM with the load generator, so the figures are meant for comparing commits on the same
+ * machine rather than as absolute capacity.
+ * <p>
+ * Run with <code>mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rps=200 --duration=60s"</code>, see
+ * {@link LoadTestOptions} for the options. The run fails when the error rate exceeds <code>max-error-rate</code>.
+ */
+public final class LoadTest {
+
+    private final LoadTestOptions options;
+
+    private final LoadTestDataset dataset;
+
+    private final String baseUrl;
+
+    private final LoadTestReport report = new LoadTestReport();
+
+    private LoadTest(LoadTestOptions options, LoadTestDataset dataset, String baseUrl) {
+        this.options = options;
+        this.dataset = dataset;
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        double errorRate;
+        try (ServletWebServerApplicationContext context = boot(options)) {
+            long started = System.nanoTime();
+            LoadTestDataset dataset = LoadTestDataset.generate(context.getBean(DataSource.class), options.owners(),
+                options.seed());
+            System.out.printf("Generated %d owners and %d pets in %d ms%n", dataset.getOwners(), dataset.getPets(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "/");
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort() +
+                (contextPath.endsWith("/") ? contextPath : contextPath + "/") + "api";
+            System.out.println("Running " + options + " against " + baseUrl);
+
+            LoadTest loadTest = new LoadTest(options, dataset, baseUrl);
+            double measuredSeconds = loadTest.run();
+            Map<String, Object> report = loadTest.report.toMap(options, commit(), measuredSeconds);
+            LoadTestReport.write(report, options.report());
+            LoadTestReport.print(report, options.baseline(), System.out);
+            System.out.println("Report written to " + options.report().toAbsolutePath());
+            errorRate = loadTest.report.getErrorRate();
+        }
+        if (errorRate > options.maxErrorRate()) {
+            System.err.printf("Error rate %.4f exceeds %.4f%n", errorRate, options.maxErrorRate());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static ServletWebServerApplicationContext boot(LoadTestOptions options) throws URISyntaxException {
+        // the main application.properties, shadowed by that of the tests on the test classpath
+        Path mainResources = Path.of(PetClinicApplication.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.config.location=" + mainResources.toUri(),
+            "--server.port=0",
+            "--petclinic.security.enable=false",
+            "--logging.level.root=WARN",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.org.springframework.samples.petclinic=WARN"));
+        if (options.profiles() != null) {
+            args.add("--spring.profiles.active=" + options.profiles());
+        }
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(PetClinicApplication.class)
+            .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * @return the measured duration in seconds, excluding the warmup
+     */
+    private double run() throws InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+        Random random = new Random(this.options.seed());
+        LoadTestOperation[] operations = weightedOperations();
+        Semaphore inFlight = new Semaphore(this.options.maxInFlight());
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / this.options.rps();
+
+        long start = System.nanoTime();
+        long measureFrom = start + this.options.warmup().toNanos();
+        long end = measureFrom + this.options.duration().toNanos();
+        long scheduled = start;
+        while (true) {
+            // exponentially distributed gaps, i.e. Poisson arrivals at the target rate
+            scheduled += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            LoadTestOperation operation = operations[random.nextInt(operations.length)];
+            HttpRequest request = operation.newRequest(this.baseUrl, this.dataset, random);
+            for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    this.report.recordError(operation);
+                }
+                continue;
+            }
+            long intendedStart = scheduled;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long latency = System.nanoTime() - intendedStart;
+                inFlight.release();
+                if (!measured) {
+                    return;
+                }
+                if (failure == null && response.statusCode() < 400) {
+                    this.report.recordSuccess(operation, latency);
+                } else {
+                    this.report.recordError(operation);
+                }
+            });
+        }
+        // let the outstanding requests complete, they time out after 30s
+        inFlight.tryAcquire(this.options.maxInFlight(), 35, TimeUnit.SECONDS);
+        executor.shutdownNow();
+        return this.options.duration().toNanos() / 1e9;
+    }
+
+    private LoadTestOperation[] weightedOperations() {
+        List<LoadTestOperation> operations = new ArrayList<>();
+        this.options.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        return operations.toArray(LoadTestOperation[]::new);
+    }
+
+    private static String commit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String commit = output.readLine();
+                return git.waitFor() == 0 ? commit : null;
+            }
+        } catch (IOException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+}
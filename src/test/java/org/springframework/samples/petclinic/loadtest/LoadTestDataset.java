@@ -0,0 +1,145 @@
+package org.springframework.samples.petclinic.loadtest;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Dataset of a {@link LoadTest}, generated on top of the sample data: owners sharing a limited set of last names, so
+ * that owner searches return a few dozen owners, with up to 3 pets of up to 4 visits each. The rows are inserted with
+ * plain SQL, the generated ids read back, so that it works for every database and repository profile.
+ */
+final class LoadTestDataset {
+
+    private static final String[] FIRST_NAMES = {"George", "Betty", "Eduardo", "Harold", "Peter", "Jean", "Jeff",
+        "Maria", "David", "Carlos", "Sharon", "Helen", "Rafael", "Ana", "Tomas", "Yuki"};
+
+    private static final String[] LAST_NAMES = {"Franklin", "Davis", "Rodriquez", "McTavish", "Coleman", "Black",
+        "Escobito", "Schroeder", "Estaban", "Carter", "Leary", "Douglas", "Ortega", "Stevens", "Jenkins", "Nakamura",
+        "Novak", "Okafor", "Larsen", "Moreau", "Kowalski", "Haddad", "Lindqvist", "Silva", "Brennan", "Fischer",
+        "Romano", "Tanaka", "Petrov", "Walsh", "Ibrahim", "Costa", "Jansen", "Murphy", "Nguyen", "Dubois", "Keller",
+        "Rossi", "Andersen", "Hughes", "Varga", "Moreno", "Sato", "Bauer", "Quinn", "Mendes", "Horvat", "Ali", "Lopez",
+        "Young"};
+
+    private static final String[] PET_NAMES = {"Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+        "Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Milo", "Luna", "Oscar"};
+
+    private static final String[] VISIT_DESCRIPTIONS = {"rabies shot", "neutered", "spayed", "annual checkup",
+        "dental cleaning", "vaccination", "skin allergy", "limping"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final int[] ownerIds;
+
+    private final int[] petIds;
+
+    private final int[] petOwnerIds;
+
+    private LoadTestDataset(int[] ownerIds, int[] petIds, int[] petOwnerIds) {
+        this.ownerIds = ownerIds;
+        this.petIds = petIds;
+        this.petOwnerIds = petOwnerIds;
+    }
+
+    static LoadTestDataset generate(DataSource dataSource, int owners, long seed) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Random random = new Random(seed);
+
+        int lastOwnerId = maxId(jdbcTemplate, "owners");
+        List<Object[]> ownerRows = new ArrayList<>(owners);
+        for (int i = 0; i < owners; i++) {
+            ownerRows.add(new Object[] {pick(random, FIRST_NAMES), pick(random, LAST_NAMES),
+                (100 + random.nextInt(9900)) + " Main St.", "Madison", String.format("608%07d", random.nextInt(10_000_000))});
+        }
+        insert(jdbcTemplate, "INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?)",
+            ownerRows);
+        int[] ownerIds = ids(jdbcTemplate, "owners", lastOwnerId);
+
+        List<Integer> typeIds = jdbcTemplate.queryForList("SELECT id FROM types", Integer.class);
+        int lastPetId = maxId(jdbcTemplate, "pets");
+        List<Object[]> petRows = new ArrayList<>();
+        for (int ownerId : ownerIds) {
+            for (int pet = random.nextInt(4); pet > 0; pet--) {
+                petRows.add(new Object[] {pick(random, PET_NAMES),
+                    Date.valueOf(LocalDate.of(2010, 1, 1).plusDays(random.nextInt(5000))),
+                    typeIds.get(random.nextInt(typeIds.size())), ownerId});
+            }
+        }
+        insert(jdbcTemplate, "INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?)", petRows);
+        int[] petIds = ids(jdbcTemplate, "pets", lastPetId);
+        int[] petOwnerIds = new int[petIds.length];
+        for (int i = 0; i < petIds.length; i++) {
+            // the ids are generated in insertion order
+            petOwnerIds[i] = (Integer) petRows.get(i)[3];
+        }
+
+        List<Object[]> visitRows = new ArrayList<>();
+        for (int petId : petIds) {
+            for (int visit = random.nextInt(5); visit > 0; visit--) {
+                visitRows.add(new Object[] {petId, Date.valueOf(LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3000))),
+                    pick(random, VISIT_DESCRIPTIONS)});
+            }
+        }
+        insert(jdbcTemplate, "INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)", visitRows);
+
+        return new LoadTestDataset(ownerIds, petIds, petOwnerIds);
+    }
+
+    String randomLastName(Random random) {
+        return pick(random, LAST_NAMES);
+    }
+
+    int randomOwnerId(Random random) {
+        return this.ownerIds[random.nextInt(this.ownerIds.length)];
+    }
+
+    /**
+     * @return the index of a random pet, see {@link #getPetId(int)} and {@link #getPetOwnerId(int)}
+     */
+    int randomPet(Random random) {
+        return random.nextInt(this.petIds.length);
+    }
+
+    int getPetId(int pet) {
+        return this.petIds[pet];
+    }
+
+    int getPetOwnerId(int pet) {
+        return this.petOwnerIds[pet];
+    }
+
+    int getOwners() {
+        return this.ownerIds.length;
+    }
+
+    int getPets() {
+        return this.petIds.length;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static int maxId(JdbcTemplate jdbcTemplate, String table) {
+        Integer max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+        return max != null ? max : 0;
+    }
+
+    private static int[] ids(JdbcTemplate jdbcTemplate, String table, int after) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id", Integer.class, after)
+            .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * The requests of a {@link LoadTest}, each for random data of the {@link LoadTestDataset}.
+ */
+enum LoadTestOperation {
+
+    SEARCH_OWNERS("searchOwners") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, LoadTestDataset dataset, Random random) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/owners?lastName=" + dataset.randomLastName(random)));
+        }
+    },
+
+    OWNER_DETAIL("ownerDetail") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, LoadTestDataset dataset, Random random) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/owners/" + dataset.randomOwnerId(random)));
+        }
+    },
+
+    ADD_VISIT("addVisit") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, LoadTestDataset dataset, Random random) {
+            int pet = dataset.randomPet(random);
+            String body = "{\"date\":\"" + LocalDate.now().minusDays(random.nextInt(30)) +
+                "\",\"description\":\"load test visit\"}";
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/owners/" + dataset.getPetOwnerId(pet) +
+                    "/pets/" + dataset.getPetId(pet) + "/visits"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+
+    LIST_VETS("listVets") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, LoadTestDataset dataset, Random random) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/vets"));
+        }
+    };
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String name;
+
+    LoadTestOperation(String name) {
+        this.name = name;
+    }
+
+    static LoadTestOperation forName(String name) {
+        for (LoadTestOperation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    HttpRequest newRequest(String baseUrl, LoadTestDataset dataset, Random random) {
+        return request(baseUrl, dataset, random)
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip")
+            .timeout(TIMEOUT)
+            .build();
+    }
+
+    abstract HttpRequest.Builder request(String baseUrl, LoadTestDataset dataset, Random random);
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+}
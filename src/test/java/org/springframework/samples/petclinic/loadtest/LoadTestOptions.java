@@ -0,0 +1,101 @@
+package org.springframework.samples.petclinic.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Options of a {@link LoadTest}, given as <code>--name=value</code> arguments:
+ * <ul>
+ * <li><code>rps</code>: target arrival rate of requests per second, default 200</li>
+ * <li><code>duration</code>: measured duration, default 60s, after a <code>warmup</code>, default 15s</li>
+ * <li><code>mix</code>: relative weights of the {@link LoadTestOperation operations}, default
+ * <code>searchOwners=30,ownerDetail=40,addVisit=10,listVets=20</code></li>
+ * <li><code>owners</code>: owners of the generated dataset, default 2000, each with up to 3 pets of up to 4 visits</li>
+ * <li><code>seed</code>: seed of the dataset and of the request sequence, default 42</li>
+ * <li><code>profiles</code>: active profiles of the application, default those of <code>application.properties</code></li>
+ * <li><code>report</code>: file of the JSON report, default <code>target/loadtest/report.json</code></li>
+ * <li><code>baseline</code>: report of an earlier run to compare with, optional</li>
+ * <li><code>max-error-rate</code>: error rate above which the run fails, default 0.01</li>
+ * <li><code>max-in-flight</code>: outstanding requests above which arrivals are dropped, and counted as errors,
+ * default 10000</li>
+ * </ul>
+ */
+record LoadTestOptions(double rps, Duration duration, Duration warmup, Map<LoadTestOperation, Integer> mix,
+                       int owners, long seed, String profiles, Path report, Path baseline, double maxErrorRate,
+                       int maxInFlight) {
+
+    static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("rps", "200");
+        values.put("duration", "60s");
+        values.put("warmup", "15s");
+        values.put("mix", "searchOwners=30,ownerDetail=40,addVisit=10,listVets=20");
+        values.put("owners", "2000");
+        values.put("seed", "42");
+        values.put("profiles", null);
+        values.put("report", "target/loadtest/report.json");
+        values.put("baseline", null);
+        values.put("max-error-rate", "0.01");
+        values.put("max-in-flight", "10000");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name == null || !values.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of --" +
+                    String.join("=, --", values.keySet()) + "=");
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+            Double.parseDouble(values.get("rps")),
+            DurationStyle.detectAndParse(values.get("duration")),
+            DurationStyle.detectAndParse(values.get("warmup")),
+            parseMix(values.get("mix")),
+            Integer.parseInt(values.get("owners")),
+            Long.parseLong(values.get("seed")),
+            values.get("profiles"),
+            Path.of(values.get("report")),
+            values.get("baseline") != null ? Path.of(values.get("baseline")) : null,
+            Double.parseDouble(values.get("max-error-rate")),
+            Integer.parseInt(values.get("max-in-flight")));
+    }
+
+    private static Map<LoadTestOperation, Integer> parseMix(String mix) {
+        Map<LoadTestOperation, Integer> weights = new EnumMap<>(LoadTestOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in the mix, got " + entry);
+            }
+            weights.put(LoadTestOperation.forName(nameAndWeight[0].trim()), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rps", this.rps);
+        description.put("durationSeconds", this.duration.toMillis() / 1000.0);
+        description.put("warmupSeconds", this.warmup.toMillis() / 1000.0);
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        this.mix.forEach((operation, weight) -> mix.put(operation.getName(), weight));
+        description.put("mix", mix);
+        description.put("owners", this.owners);
+        description.put("seed", this.seed);
+        description.put("profiles", this.profiles);
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%.0f rps for %ss after %ss of warmup, mix %s, %d owners",
+            this.rps, this.duration.toSeconds(), this.warmup.toSeconds(), this.mix, this.owners);
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.springframework.samples.petclinic.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies, errors and throughput of a {@link LoadTest}, per operation and in total.
+ * <p>
+ * Latencies are measured from the scheduled start of each request rather than from when it was sent, so that they
+ * include the time spent waiting for a connection when the server falls behind (no coordinated omission).
+ * The report is written as JSON, with the latency percentiles in milliseconds, for comparison with the reports of
+ * other commits.
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(5);
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<LoadTestOperation, Statistics> operations = new EnumMap<>(LoadTestOperation.class);
+
+    private final Statistics total = new Statistics();
+
+    LoadTestReport() {
+        for (LoadTestOperation operation : LoadTestOperation.values()) {
+            this.operations.put(operation, new Statistics());
+        }
+    }
+
+    void recordSuccess(LoadTestOperation operation, long latencyNanos) {
+        long latency = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY);
+        this.operations.get(operation).latencies.recordValue(latency);
+        this.total.latencies.recordValue(latency);
+    }
+
+    void recordError(LoadTestOperation operation) {
+        this.operations.get(operation).errors.increment();
+        this.total.errors.increment();
+    }
+
+    double getErrorRate() {
+        return this.total.errorRate();
+    }
+
+    Map<String, Object> toMap(LoadTestOptions options, String commit, double measuredSeconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("commit", commit);
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", Runtime.version().toString());
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("options", options.describe());
+        report.put("total", this.total.toMap(measuredSeconds));
+        Map<String, Object> operations = new LinkedHashMap<>();
+        this.operations.forEach((operation, statistics) -> {
+            if (statistics.requests() > 0) {
+                operations.put(operation.getName(), statistics.toMap(measuredSeconds));
+            }
+        });
+        report.put("operations", operations);
+        return report;
+    }
+
+    static void write(Map<String, Object> report, Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        OBJECT_MAPPER.writeValue(file.toFile(), report);
+    }
+
+    /**
+     * Print the figures of a report, side by side with those of a baseline report if given.
+     */
+    static void print(Map<String, Object> report, Path baselineFile, PrintStream out) throws IOException {
+        JsonNode current = OBJECT_MAPPER.valueToTree(report);
+        JsonNode baseline = baselineFile != null ? OBJECT_MAPPER.readTree(baselineFile.toFile()) : null;
+        out.printf(Locale.ROOT, "%-13s %10s %9s %9s %9s %9s %9s%n",
+            "operation", "throughput", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms");
+        print("total", current.path("total"), baseline != null ? baseline.path("total") : null, out);
+        current.path("operations").fieldNames().forEachRemaining(name ->
+            print(name, current.path("operations").path(name),
+                baseline != null ? baseline.path("operations").path(name) : null, out));
+        if (baseline != null) {
+            out.printf("(baseline in parentheses: %s, commit %s)%n", baselineFile, baseline.path("commit").asText());
+        }
+    }
+
+    private static void print(String name, JsonNode figures, JsonNode baseline, PrintStream out) {
+        JsonNode latency = figures.path("latencyMs");
+        out.printf(Locale.ROOT, "%-13s %10s %9s %9s %9s %9s %9s%n", name,
+            figure(figures.path("throughput"), baseline != null ? baseline.path("throughput") : null, "%.1f"),
+            figure(figures.path("errorRate"), baseline != null ? baseline.path("errorRate") : null, "%.4f"),
+            latency(latency, baseline, "p50"), latency(latency, baseline, "p90"),
+            latency(latency, baseline, "p99"), latency(latency, baseline, "p99.9"));
+    }
+
+    private static String latency(JsonNode latency, JsonNode baseline, String percentile) {
+        return figure(latency.path(percentile),
+            baseline != null ? baseline.path("latencyMs").path(percentile) : null, "%.1f");
+    }
+
+    private static String figure(JsonNode value, JsonNode baseline, String format) {
+        String figure = String.format(Locale.ROOT, format, value.asDouble());
+        if (baseline == null || baseline.isMissingNode()) {
+            return figure;
+        }
+        return figure + " (" + String.format(Locale.ROOT, format, baseline.asDouble()) + ")";
+    }
+
+    private static final class Statistics {
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        long requests() {
+            return this.latencies.getTotalCount() + this.errors.sum();
+        }
+
+        double errorRate() {
+            long requests = requests();
+            return requests > 0 ? (double) this.errors.sum() / requests : 0;
+        }
+
+        Map<String, Object> toMap(double measuredSeconds) {
+            Map<String, Object> figures = new LinkedHashMap<>();
+            figures.put("requests", requests());
+            figures.put("errors", this.errors.sum());
+            figures.put("errorRate", errorRate());
+            figures.put("throughput", this.latencies.getTotalCount() / measuredSeconds);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                latency.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : percentile),
+                    this.latencies.getValueAtPercentile(percentile) / 1000.0);
+            }
+            latency.put("max", this.latencies.getMaxValue() / 1000.0);
+            latency.put("mean", this.latencies.getMean() / 1000.0);
+            figures.put("latencyMs", latency);
+            return figures;
+        }
+    }
+
+}
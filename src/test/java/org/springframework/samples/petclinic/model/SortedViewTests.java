@@ -0,0 +1,133 @@
+package org.springframework.samples.petclinic.model;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the sorted child collections of {@link Owner}, {@link Pet} and {@link Vet}, see {@link SortedView}
+ */
+class SortedViewTests {
+
+    @Test
+    void shouldKeepPetsSortedByNameAsTheyAreAdded() {
+        Owner owner = new Owner();
+        owner.addPet(pet("max"));
+        owner.addPet(pet("Basil"));
+
+        List<Pet> pets = owner.getPets();
+        assertThat(pets).extracting(Pet::getName).containsExactly("Basil", "max");
+        assertThat(owner.getPets()).isSameAs(pets);
+
+        owner.addPet(pet("Leo"));
+        owner.addPet(pet(null));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo", "max", null);
+        assertThat(pets).hasSize(2);
+        assertThatThrownBy(() -> owner.getPets().add(pet("Rosy"))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldResortWhenSortKeyChanges() {
+        Owner owner = new Owner();
+        Pet basil = pet("Basil");
+        owner.addPet(basil);
+        owner.addPet(pet("Leo"));
+        owner.getPets();
+
+        basil.setName("Samantha");
+
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Leo", "Samantha");
+    }
+
+    @Test
+    void shouldFollowChangesMadeOutsideTheEntity() {
+        Owner owner = new Owner();
+        owner.addPet(pet("Leo"));
+        owner.getPets();
+
+        owner.getPetsInternal().add(pet("Basil"));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Basil", "Leo");
+
+        owner.setPets(List.of(pet("Jewel")));
+        assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Jewel");
+    }
+
+    @Test
+    void shouldFollowReplacementsOfTheSameSize() {
+        Vet vet = new Vet();
+        vet.addSpecialty(specialty("surgery"));
+        vet.getSpecialties();
+
+        vet.setSpecialties(List.of(specialty("dentistry")));
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry");
+
+        // as Hibernate does when loading or merging, without going through the setters
+        ReflectionTestUtils.setField(vet, "specialties", new HashSet<>(List.of(specialty("radiology"))));
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("radiology");
+    }
+
+    @Test
+    void shouldResortWhenVisitDateChanges() {
+        Pet pet = pet("Leo");
+        Visit first = visit(LocalDate.of(2013, 1, 1));
+        pet.addVisit(first);
+        pet.addVisit(visit(LocalDate.of(2013, 1, 2)));
+        pet.getVisits();
+
+        first.setDate(LocalDate.of(2013, 1, 3));
+
+        assertThat(pet.getVisits()).first().isSameAs(first);
+    }
+
+    @Test
+    void shouldSortVisitsMostRecentFirst() {
+        Pet pet = pet("Leo");
+        pet.addVisit(visit(LocalDate.of(2013, 1, 1)));
+        pet.addVisit(visit(LocalDate.of(2013, 1, 3)));
+        pet.getVisits();
+        pet.addVisit(visit(LocalDate.of(2013, 1, 2)));
+
+        assertThat(pet.getVisits()).extracting(Visit::getDate).containsExactly(
+            LocalDate.of(2013, 1, 3), LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 1));
+    }
+
+    @Test
+    void shouldSortSpecialtiesByName() {
+        Vet vet = new Vet();
+        vet.addSpecialty(specialty("surgery"));
+        vet.addSpecialty(specialty("dentistry"));
+        vet.getSpecialties();
+        vet.addSpecialty(specialty("radiology"));
+
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName)
+            .containsExactly("dentistry", "radiology", "surgery");
+
+        vet.clearSpecialties();
+        assertThat(vet.getSpecialties()).isEmpty();
+    }
+
+    private static Pet pet(String name) {
+        Pet pet = new Pet();
+        pet.setName(name);
+        return pet;
+    }
+
+    private static Visit visit(LocalDate date) {
+        Visit visit = new Visit();
+        visit.setDate(date);
+        return visit;
+    }
+
+    private static Specialty specialty(String name) {
+        Specialty specialty = new Specialty();
+        specialty.setName(name);
+        return specialty;
+    }
+
+}
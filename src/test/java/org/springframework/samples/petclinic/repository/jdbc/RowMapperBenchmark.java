@@ -0,0 +1,94 @@
+package org.springframework.samples.petclinic.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.samples.petclinic.model.Owner;
+
+/**
+ * Compares mapping owner rows with a <code>BeanPropertyRowMapper</code> created per query, as the JDBC repositories
+ * used to, against {@link JdbcOwnerRowMapper}. The rows are read from an in-memory <code>CachedRowSet</code>, so that
+ * only the mapping is measured.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RowMapperBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({"10", "1000"})
+    private int owners;
+
+    private CachedRowSet rows;
+
+    @Setup
+    public void setUp() throws SQLException {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.HSQL)
+            .generateUniqueName(true)
+            .build();
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE owners (id INTEGER PRIMARY KEY, first_name VARCHAR(30), " +
+                "last_name VARCHAR(30), address VARCHAR(255), city VARCHAR(80), telephone VARCHAR(20))");
+            for (int id = 1; id <= this.owners; id++) {
+                jdbcTemplate.update("INSERT INTO owners VALUES (?, ?, ?, ?, ?, ?)",
+                    id, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023");
+            }
+            this.rows = RowSetProvider.newFactory().createCachedRowSet();
+            try (Connection connection = database.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                     "SELECT id, first_name, last_name, address, city, telephone FROM owners")) {
+                this.rows.populate(resultSet);
+            }
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Owner> beanPropertyRowMapper() throws SQLException {
+        return map(BeanPropertyRowMapper.newInstance(Owner.class));
+    }
+
+    @Benchmark
+    public List<Owner> explicitRowMapper() throws SQLException {
+        return map(JdbcOwnerRowMapper.INSTANCE);
+    }
+
+    private List<Owner> map(RowMapper<Owner> rowMapper) throws SQLException {
+        this.rows.beforeFirst();
+        return new RowMapperResultSetExtractor<>(rowMapper).extractData(this.rows);
+    }
+
+}
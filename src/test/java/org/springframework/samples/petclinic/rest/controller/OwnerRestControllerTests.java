@@ -16,6 +16,7 @@
 
 package org.springframework.samples.petclinic.rest.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -24,16 +25,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.samples.petclinic.mapper.OwnerMapper;
 import org.springframework.samples.petclinic.mapper.PetMapper;
 import org.springframework.samples.petclinic.mapper.VisitMapper;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Specialty;
+import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
+import org.springframework.samples.petclinic.rest.advice.FieldSelectionAdvice;
 import org.springframework.samples.petclinic.rest.dto.OwnerDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
 import org.springframework.samples.petclinic.rest.dto.VisitDto;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerDashboard;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
@@ -47,8 +56,16 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -66,6 +83,15 @@ class OwnerRestControllerTests {
     @Autowired
     private OwnerRestController ownerRestController;
 
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
     @Autowired
     private OwnerMapper ownerMapper;
 
@@ -89,7 +115,8 @@ class OwnerRestControllerTests {
     @BeforeEach
     void initOwners() {
         this.mockMvc = MockMvcBuilders.standaloneSetup(ownerRestController)
-            .setControllerAdvice(new ExceptionControllerAdvice())
+            .setControllerAdvice(new ExceptionControllerAdvice(), new FieldSelectionAdvice())
+            .setMessageConverters(jsonConverter, cborConverter, smileConverter)
             .build();
         owners = new ArrayList<>();
 
@@ -150,7 +177,7 @@ class OwnerRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnerSuccess() throws Exception {
-        given(this.clinicService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        given(this.clinicService.findOwnerById(1, 20)).willReturn(ownerMapper.toOwner(owners.get(0)));
         this.mockMvc.perform(get("/api/owners/1")
                 .accept(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(status().isOk())
@@ -159,21 +186,145 @@ class OwnerRestControllerTests {
             .andExpect(jsonPath("$.firstName").value("George"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnerWithVisitLimit() throws Exception {
+        Owner owner = ownerMapper.toOwner(owners.get(0));
+        owner.getPets().get(0).setVisitCount(7);
+        given(this.clinicService.findOwnerById(1, 2)).willReturn(owner);
+        this.mockMvc.perform(get("/api/owners/1?visits=2")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.pets[0].visits.length()").value(1))
+            .andExpect(jsonPath("$.pets[0].visitCount").value(7));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnerWithFields() throws Exception {
+        Owner owner = new Owner();
+        owner.setId(1);
+        owner.setLastName("Franklin");
+        given(this.clinicService.findOwnerById(1, Set.of("id", "lastName"))).willReturn(owner);
+        this.mockMvc.perform(get("/api/owners/1?fields=id,lastName")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.lastName").value("Franklin"))
+            .andExpect(jsonPath("$.firstName").doesNotExist())
+            .andExpect(jsonPath("$.pets").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersAsCbor() throws Exception {
+        given(this.clinicService.findAllOwners(20)).willReturn(ownerMapper.toOwners(owners));
+        byte[] body = this.mockMvc.perform(get("/api/owners")
+                .accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+        OwnerDto[] decoded = cborConverter.getObjectMapper().readValue(body, OwnerDto[].class);
+        assertThat(decoded).hasSize(4);
+        assertThat(decoded[0].getPets().get(0).getBirthDate()).isEqualTo(owners.get(0).getPets().get(0).getBirthDate());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersWithFieldsAsSmile() throws Exception {
+        given(this.clinicService.findAllOwners(Set.of("id", "lastName"))).willReturn(ownerMapper.toOwners(owners));
+        byte[] body = this.mockMvc.perform(get("/api/owners?fields=id,lastName")
+                .accept("application/x-jackson-smile"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-jackson-smile"))
+            .andReturn().getResponse().getContentAsByteArray();
+        JsonNode decoded = smileConverter.getObjectMapper().readTree(body);
+        assertThat(decoded.get(0).get("lastName").asText()).isEqualTo("Franklin");
+        assertThat(decoded.get(0).has("firstName")).isFalse();
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersWithFieldsIncludingPets() throws Exception {
+        given(this.clinicService.findAllOwners(20)).willReturn(ownerMapper.toOwners(owners));
+        this.mockMvc.perform(get("/api/owners?fields=lastName,pets")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].lastName").value("Franklin"))
+            .andExpect(jsonPath("$.[0].pets[0].name").value("Rosy"))
+            .andExpect(jsonPath("$.[0].pets[0].type.name").value("dog"))
+            .andExpect(jsonPath("$.[0].id").doesNotExist())
+            .andExpect(jsonPath("$.[0].city").doesNotExist());
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnerNotFound() throws Exception {
-        given(this.clinicService.findOwnerById(2)).willReturn(null);
+        given(this.clinicService.findOwnerById(2, 20)).willReturn(null);
         this.mockMvc.perform(get("/api/owners/2")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = {"OWNER_ADMIN", "VET_ADMIN"})
+    void testGetOwnerDashboardSuccess() throws Exception {
+        PetType cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        Specialty radiology = new Specialty();
+        radiology.setId(1);
+        radiology.setName("radiology");
+        Vet vet = new Vet();
+        vet.setId(2);
+        vet.setFirstName("Helen");
+        vet.setLastName("Leary");
+        vet.addSpecialty(radiology);
+        given(this.clinicService.findOwnerDashboard(1, 2, true)).willReturn(new OwnerDashboard(
+            ownerMapper.toOwner(owners.get(0)), List.of(cat), List.of(vet), List.of(radiology)));
+        this.mockMvc.perform(get("/api/owners/1/dashboard?visits=2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(jsonPath("$.owner.id").value(1))
+            .andExpect(jsonPath("$.owner.pets[0].name").value("Rosy"))
+            .andExpect(jsonPath("$.petTypes[0].name").value("cat"))
+            .andExpect(jsonPath("$.vets[0].specialties[0].name").value("radiology"))
+            .andExpect(jsonPath("$.specialties[0].id").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnerDashboardWithoutVetAdminRole() throws Exception {
+        PetType cat = new PetType();
+        cat.setId(1);
+        cat.setName("cat");
+        given(this.clinicService.findOwnerDashboard(1, 20, false)).willReturn(new OwnerDashboard(
+            ownerMapper.toOwner(owners.get(0)), List.of(cat), List.of(), List.of()));
+        this.mockMvc.perform(get("/api/owners/1/dashboard")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.petTypes[0].name").value("cat"))
+            .andExpect(jsonPath("$.vets").isEmpty())
+            .andExpect(jsonPath("$.specialties").isEmpty());
+        verify(this.clinicService, never()).findOwnerDashboard(anyInt(), anyInt(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnerDashboardNotFound() throws Exception {
+        given(this.clinicService.findOwnerDashboard(99, 20, false)).willReturn(null);
+        this.mockMvc.perform(get("/api/owners/99/dashboard")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnersListSuccess() throws Exception {
         owners.remove(0);
         owners.remove(1);
-        given(this.clinicService.findOwnerByLastName("Davis")).willReturn(ownerMapper.toOwners(owners));
+        given(this.clinicService.findOwnerByLastName("Davis", 20)).willReturn(ownerMapper.toOwners(owners));
         this.mockMvc.perform(get("/api/owners?lastName=Davis")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
@@ -188,7 +339,7 @@ class OwnerRestControllerTests {
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnersListNotFound() throws Exception {
         owners.clear();
-        given(this.clinicService.findOwnerByLastName("0")).willReturn(ownerMapper.toOwners(owners));
+        given(this.clinicService.findOwnerByLastName("0", 20)).willReturn(ownerMapper.toOwners(owners));
         this.mockMvc.perform(get("/api/owners?lastName=0")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
@@ -199,7 +350,7 @@ class OwnerRestControllerTests {
     void testGetAllOwnersSuccess() throws Exception {
         owners.remove(0);
         owners.remove(1);
-        given(this.clinicService.findAllOwners()).willReturn(ownerMapper.toOwners(owners));
+        given(this.clinicService.findAllOwners(20)).willReturn(ownerMapper.toOwners(owners));
         this.mockMvc.perform(get("/api/owners")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
@@ -210,11 +361,60 @@ class OwnerRestControllerTests {
             .andExpect(jsonPath("$.[1].firstName").value("Harold"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersByIds() throws Exception {
+        List<Owner> found = new ArrayList<>(ownerMapper.toOwners(List.of(owners.get(3), owners.get(1))));
+        given(this.clinicService.findOwnersByIds(List.of(4, 42, 2), 20)).willReturn(found);
+        this.mockMvc.perform(get("/api/owners?ids=4,42,2,4")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Missing-Ids", "42"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(4))
+            .andExpect(jsonPath("$.[1].id").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersByIdsWithFields() throws Exception {
+        Owner owner = new Owner();
+        owner.setId(4);
+        owner.setLastName("Davis");
+        given(this.clinicService.findOwnersByIds(List.of(4, 42), Set.of("id", "lastName"))).willReturn(List.of(owner));
+        this.mockMvc.perform(get("/api/owners?ids=4,42&fields=id,lastName")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Missing-Ids", "42"))
+            .andExpect(jsonPath("$.[0].lastName").value("Davis"))
+            .andExpect(jsonPath("$.[0].pets").doesNotExist());
+        verify(this.clinicService, never()).findOwnersByIds(anyCollection(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersByIdsAndLastName() throws Exception {
+        this.mockMvc.perform(get("/api/owners?ids=4&lastName=Davis")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(this.clinicService);
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetOwnersByIdsNotFound() throws Exception {
+        given(this.clinicService.findOwnersByIds(List.of(42, 43), 20)).willReturn(List.of());
+        this.mockMvc.perform(get("/api/owners?ids=42,43")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound())
+            .andExpect(header().string("Missing-Ids", "42,43"));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetAllOwnersNotFound() throws Exception {
         owners.clear();
-        given(this.clinicService.findAllOwners()).willReturn(ownerMapper.toOwners(owners));
+        given(this.clinicService.findAllOwners(20)).willReturn(ownerMapper.toOwners(owners));
         this.mockMvc.perform(get("/api/owners")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
@@ -252,7 +452,9 @@ class OwnerRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testUpdateOwnerSuccess() throws Exception {
-        given(this.clinicService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        Owner owner = ownerMapper.toOwner(owners.get(0));
+        given(this.clinicService.findOwnerForUpdate(1)).willReturn(owner);
+        given(this.clinicService.findOwnerById(1, 20)).willReturn(owner);
         int ownerId = owners.get(0).getId();
         OwnerDto updatedOwnerDto = new OwnerDto();
         // body.id = ownerId which is used in url path
@@ -283,7 +485,9 @@ class OwnerRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testUpdateOwnerSuccessNoBodyId() throws Exception {
-        given(this.clinicService.findOwnerById(1)).willReturn(ownerMapper.toOwner(owners.get(0)));
+        Owner owner = ownerMapper.toOwner(owners.get(0));
+        given(this.clinicService.findOwnerForUpdate(1)).willReturn(owner);
+        given(this.clinicService.findOwnerById(1, 20)).willReturn(owner);
         int ownerId = owners.get(0).getId();
         OwnerDto updatedOwnerDto = new OwnerDto();
         updatedOwnerDto.setFirstName("GeorgeI");
@@ -329,7 +533,7 @@ class OwnerRestControllerTests {
         mapper.registerModule(new JavaTimeModule());
         String newOwnerAsJSON = mapper.writeValueAsString(newOwnerDto);
         final Owner owner = ownerMapper.toOwner(owners.get(0));
-        given(this.clinicService.findOwnerById(1)).willReturn(owner);
+        given(this.clinicService.findOwnerForUpdate(1)).willReturn(owner);
         this.mockMvc.perform(delete("/api/owners/1")
                 .content(newOwnerAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(status().isNoContent());
@@ -342,7 +546,7 @@ class OwnerRestControllerTests {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         String newOwnerAsJSON = mapper.writeValueAsString(newOwnerDto);
-        given(this.clinicService.findOwnerById(999)).willReturn(null);
+        given(this.clinicService.findOwnerForUpdate(999)).willReturn(null);
         this.mockMvc.perform(delete("/api/owners/999")
                 .content(newOwnerAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(status().isNotFound());
@@ -399,7 +603,7 @@ class OwnerRestControllerTests {
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnerPetSuccess() throws Exception {
         var owner = ownerMapper.toOwner(owners.get(0));
-        given(this.clinicService.findOwnerById(2)).willReturn(owner);
+        given(this.clinicService.findOwnerById(2, 20)).willReturn(owner);
         var pet = petMapper.toPet(pets.get(0));
         pet.setOwner(owner);
         given(this.clinicService.findPetById(1)).willReturn(pet);
@@ -423,7 +627,7 @@ class OwnerRestControllerTests {
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetOwnersPetsWithPetNotFound() throws Exception {
         var owner1 = ownerMapper.toOwner(owners.get(0));
-        given(this.clinicService.findOwnerById(1)).willReturn(owner1);
+        given(this.clinicService.findOwnerById(1, 20)).willReturn(owner1);
         this.mockMvc.perform(get("/api/owners/1/pets/2")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
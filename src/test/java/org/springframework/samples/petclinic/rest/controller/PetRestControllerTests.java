@@ -25,9 +25,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.samples.petclinic.mapper.PetMapper;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
+import org.springframework.samples.petclinic.rest.advice.FieldSelectionAdvice;
 import org.springframework.samples.petclinic.rest.dto.OwnerDto;
 import org.springframework.samples.petclinic.rest.dto.PetDto;
 import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
@@ -45,6 +48,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.when;
@@ -67,6 +71,9 @@ class PetRestControllerTests {
     protected ClinicService clinicService;
     @Autowired
     private PetRestController petRestController;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
     @Autowired
     private PetMapper petMapper;
     private MockMvc mockMvc;
@@ -76,7 +83,8 @@ class PetRestControllerTests {
     @BeforeEach
     void initPets() {
         this.mockMvc = MockMvcBuilders.standaloneSetup(petRestController)
-            .setControllerAdvice(new ExceptionControllerAdvice())
+            .setControllerAdvice(new ExceptionControllerAdvice(), new FieldSelectionAdvice())
+            .setMessageConverters(jsonConverter)
             .build();
         pets = new ArrayList<>();
 
@@ -107,7 +115,7 @@ class PetRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetPetSuccess() throws Exception {
-        given(this.clinicService.findPetById(3)).willReturn(petMapper.toPet(pets.get(0)));
+        given(this.clinicService.findPetById(3, 20)).willReturn(petMapper.toPet(pets.get(0)));
         this.mockMvc.perform(get("/api/pets/3")
                 .accept(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(status().isOk())
@@ -116,21 +124,100 @@ class PetRestControllerTests {
             .andExpect(jsonPath("$.name").value("Rosy"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetWithoutVisits() throws Exception {
+        Pet pet = petMapper.toPet(pets.get(0));
+        pet.setVisitCount(3);
+        given(this.clinicService.findPetById(3, 0)).willReturn(pet);
+        this.mockMvc.perform(get("/api/pets/3?visits=0")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.visits").isEmpty())
+            .andExpect(jsonPath("$.visitCount").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetWithFields() throws Exception {
+        Pet pet = new Pet();
+        pet.setId(3);
+        pet.setName("Rosy");
+        given(this.clinicService.findPetById(3, Set.of("name", "owner.id"))).willReturn(pet);
+        this.mockMvc.perform(get("/api/pets/3?fields=name,ownerId")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("Rosy"))
+            .andExpect(jsonPath("$.id").doesNotExist())
+            .andExpect(jsonPath("$.type").doesNotExist())
+            .andExpect(jsonPath("$.visits").doesNotExist());
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetPetNotFound() throws Exception {
-        given(petMapper.toPetDto(this.clinicService.findPetById(-1))).willReturn(null);
+        given(petMapper.toPetDto(this.clinicService.findPetById(-1, 20))).willReturn(null);
         this.mockMvc.perform(get("/api/pets/999")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetVisitsSuccess() throws Exception {
+        Pet pet = petMapper.toPet(pets.get(0));
+        Visit visit = new Visit();
+        visit.setId(5);
+        visit.setDate(LocalDate.of(2013, 1, 2));
+        visit.setDescription("rabies shot");
+        visit.setPet(pet);
+        given(this.clinicService.findPetById(3)).willReturn(pet);
+        given(this.clinicService.findVisitsByPetIdAndDateRange(3, LocalDate.of(2013, 1, 1), null, null, null, 1))
+            .willReturn(List.of(visit));
+        this.mockMvc.perform(get("/api/pets/3/visits?from=2013-01-01&limit=1")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(5))
+            .andExpect(jsonPath("$.[0].petId").value(3))
+            .andExpect(header().string("Link",
+                "<http://localhost/api/pets/3/visits?from=2013-01-01&limit=1&after=2013-01-02,5>; rel=\"next\""));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetVisitHistorySuccess() throws Exception {
+        Pet pet = petMapper.toPet(pets.get(0));
+        Visit visit = new Visit();
+        visit.setId(1);
+        visit.setDate(LocalDate.of(2010, 3, 4));
+        visit.setDescription("rabies shot");
+        visit.setPet(pet);
+        given(this.clinicService.findPetById(3)).willReturn(pet);
+        given(this.clinicService.findVisitHistoryByPetId(3, null, LocalDate.of(2012, 12, 31), null, null, 100))
+            .willReturn(List.of(visit));
+        this.mockMvc.perform(get("/api/pets/3/visits/history?to=2012-12-31")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(1))
+            .andExpect(jsonPath("$.[0].description").value("rabies shot"))
+            .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetVisitsNotFound() throws Exception {
+        given(this.clinicService.findPetById(999)).willReturn(null);
+        this.mockMvc.perform(get("/api/pets/999/visits")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetAllPetsSuccess() throws Exception {
         final Collection<Pet> pets = petMapper.toPets(this.pets);
         System.err.println(pets);
-        when(this.clinicService.findAllPets()).thenReturn(pets);
+        when(this.clinicService.findAllPets(20)).thenReturn(pets);
         //given(this.clinicService.findAllPets()).willReturn(petMapper.toPets(pets));
         this.mockMvc.perform(get("/api/pets")
                 .accept(MediaType.APPLICATION_JSON))
@@ -142,11 +229,24 @@ class PetRestControllerTests {
             .andExpect(jsonPath("$.[1].name").value("Jewel"));
     }
 
+    @Test
+    @WithMockUser(roles = "OWNER_ADMIN")
+    void testGetPetsByIds() throws Exception {
+        List<Pet> found = new ArrayList<>(petMapper.toPets(List.of(pets.get(1), pets.get(0))));
+        given(this.clinicService.findPetsByIds(List.of(4, 42, 3), 2)).willReturn(found);
+        this.mockMvc.perform(get("/api/pets?ids=4,42,3&visits=2")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Missing-Ids", "42"))
+            .andExpect(jsonPath("$.[0].id").value(4))
+            .andExpect(jsonPath("$.[1].id").value(3));
+    }
+
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testGetAllPetsNotFound() throws Exception {
         pets.clear();
-        given(this.clinicService.findAllPets()).willReturn(petMapper.toPets(pets));
+        given(this.clinicService.findAllPets(20)).willReturn(petMapper.toPets(pets));
         this.mockMvc.perform(get("/api/pets")
                 .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isNotFound());
@@ -155,7 +255,9 @@ class PetRestControllerTests {
     @Test
     @WithMockUser(roles = "OWNER_ADMIN")
     void testUpdatePetSuccess() throws Exception {
-        given(this.clinicService.findPetById(3)).willReturn(petMapper.toPet(pets.get(0)));
+        Pet pet = petMapper.toPet(pets.get(0));
+        given(this.clinicService.findPetById(3)).willReturn(pet);
+        given(this.clinicService.findPetById(3, 20)).willReturn(pet);
         PetDto newPet = pets.get(0);
         newPet.setName("Rosy I");
         ObjectMapper mapper = new ObjectMapper();
@@ -22,9 +22,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.samples.petclinic.mapper.VetMapper;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.rest.advice.ExceptionControllerAdvice;
+import org.springframework.samples.petclinic.rest.advice.FieldSelectionAdvice;
 import org.springframework.samples.petclinic.service.ClinicService;
 import org.springframework.samples.petclinic.service.clinicService.ApplicationTestConfig;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -36,6 +38,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -54,6 +57,9 @@ class VetRestControllerTests {
     @Autowired
     private VetRestController vetRestController;
 
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
     @Autowired
     private VetMapper vetMapper;
 
@@ -67,7 +73,8 @@ class VetRestControllerTests {
     @BeforeEach
     void initVets(){
     	this.mockMvc = MockMvcBuilders.standaloneSetup(vetRestController)
-    			.setControllerAdvice(new ExceptionControllerAdvice())
+    			.setControllerAdvice(new ExceptionControllerAdvice(), new FieldSelectionAdvice())
+    			.setMessageConverters(jsonConverter)
     			.build();
     	vets = new ArrayList<Vet>();
 
@@ -112,6 +119,39 @@ class VetRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    void testGetAllVetsWithFields() throws Exception {
+    	given(this.clinicService.findAllVets(Set.of("id", "lastName"))).willReturn(vets);
+        this.mockMvc.perform(get("/api/vets?fields=id,lastName")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(1))
+            .andExpect(jsonPath("$.[0].lastName").value("Carter"))
+            .andExpect(jsonPath("$.[0].firstName").doesNotExist())
+            .andExpect(jsonPath("$.[0].specialties").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    void testGetAllVetsWithUnknownField() throws Exception {
+        this.mockMvc.perform(get("/api/vets?fields=id,salary")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles="VET_ADMIN")
+    void testGetVetsByIds() throws Exception {
+    	given(this.clinicService.findVetsByIds(List.of(3, 1))).willReturn(List.of(vets.get(2), vets.get(0)));
+        this.mockMvc.perform(get("/api/vets?ids=3,1")
+        	.accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Missing-Ids"))
+            .andExpect(jsonPath("$.[0].id").value(3))
+            .andExpect(jsonPath("$.[1].id").value(1));
+    }
+
     @Test
     @WithMockUser(roles="VET_ADMIN")
     void testGetAllVetsSuccess() throws Exception {
@@ -164,6 +204,7 @@ class VetRestControllerTests {
     @Test
     @WithMockUser(roles="VET_ADMIN")
     void testUpdateVetSuccess() throws Exception {
+    	given(this.clinicService.findVetForUpdate(1)).willReturn(vets.get(0));
     	given(this.clinicService.findVetById(1)).willReturn(vets.get(0));
     	Vet newVet = vets.get(0);
     	newVet.setFirstName("James");
@@ -201,7 +242,7 @@ class VetRestControllerTests {
     	Vet newVet = vets.get(0);
     	ObjectMapper mapper = new ObjectMapper();
         String newVetAsJSON = mapper.writeValueAsString(vetMapper.toVetDto(newVet));
-    	given(this.clinicService.findVetById(1)).willReturn(vets.get(0));
+    	given(this.clinicService.findVetForUpdate(1)).willReturn(vets.get(0));
     	this.mockMvc.perform(delete("/api/vets/1")
     		.content(newVetAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
         	.andExpect(status().isNoContent());
@@ -213,7 +254,7 @@ class VetRestControllerTests {
     	Vet newVet = vets.get(0);
     	ObjectMapper mapper = new ObjectMapper();
         String newVetAsJSON = mapper.writeValueAsString(vetMapper.toVetDto(newVet));
-    	given(this.clinicService.findVetById(-1)).willReturn(null);
+    	given(this.clinicService.findVetForUpdate(-1)).willReturn(null);
     	this.mockMvc.perform(delete("/api/vets/999")
     		.content(newVetAsJSON).accept(MediaType.APPLICATION_JSON_VALUE).contentType(MediaType.APPLICATION_JSON_VALUE))
         	.andExpect(status().isNotFound());
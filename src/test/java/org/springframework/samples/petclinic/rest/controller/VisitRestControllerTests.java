@@ -160,6 +160,52 @@ class VisitRestControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testGetVisitsByDateRangeSuccess() throws Exception {
+        LocalDate today = LocalDate.now();
+        given(this.clinicService.findVisitsByDateRange(today, today, null, null, 2)).willReturn(visits);
+        this.mockMvc.perform(get("/api/visits?from={date}&to={date}&limit=2", today, today)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(2))
+            .andExpect(jsonPath("$.[1].id").value(3))
+            .andExpect(header().string("Link",
+                "<http://localhost/api/visits?from=" + today + "&to=" + today + "&limit=2&after=" + today + ",3>; rel=\"next\""));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testGetVisitsByDateRangeLastPage() throws Exception {
+        LocalDate today = LocalDate.now();
+        given(this.clinicService.findVisitsByDateRange(today, null, today, 3, VisitPage.DEFAULT_LIMIT))
+            .willReturn(new ArrayList<>());
+        this.mockMvc.perform(get("/api/visits?from={date}&after={date},3", today, today)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty())
+            .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testGetVisitsByDateRangeBadRequest() throws Exception {
+        this.mockMvc.perform(get("/api/visits?after=yesterday")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles="OWNER_ADMIN")
+    void testGetVisitsByDateRangeAfterInvalidDateOrId() throws Exception {
+        for (String after : new String[] {"2013-02-30,1", "2013-01-01,99999999999"}) {
+            this.mockMvc.perform(get("/api/visits?after={after}", after)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Invalid after parameter: " + after));
+        }
+    }
+
     @Test
     @WithMockUser(roles="OWNER_ADMIN")
     void testCreateVisitSuccess() throws Exception {
@@ -0,0 +1,47 @@
+package org.springframework.samples.petclinic.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The compressed responses cached for one role must not be served to callers without it.
+ */
+@SpringBootTest(properties = {
+    "petclinic.security.enable=true",
+    "server.compression.min-response-size=1B"
+})
+@AutoConfigureMockMvc
+class CompressedResponseAuthorizationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldNotServeCachedVetsToOwnerAdmin() throws Exception {
+        this.mockMvc.perform(get("/api/vets").with(user("vet").roles("VET_ADMIN"))
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        this.mockMvc.perform(get("/api/vets").with(user("owner").roles("OWNER_ADMIN"))
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isForbidden());
+        this.mockMvc.perform(get("/api/vets").with(user("nobody").roles())
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andExpect(status().isForbidden());
+    }
+
+}
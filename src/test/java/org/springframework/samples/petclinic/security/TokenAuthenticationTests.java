@@ -0,0 +1,74 @@
+package org.springframework.samples.petclinic.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "petclinic.security.enable=true",
+    "petclinic.security.mode=token",
+    "petclinic.security.token.secret=dGhpcy1pcy1hLXRlc3Qta2V5LW9mLWF0LWxlYXN0LTI1Ni1iaXRz"
+})
+@AutoConfigureMockMvc
+class TokenAuthenticationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldAuthorizeWithIssuedToken() throws Exception {
+        String token = issueToken();
+
+        this.mockMvc.perform(get("/api/pettypes").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk());
+        // the roles claim is checked by @PreAuthorize
+        this.mockMvc.perform(get("/api/vets").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRejectTamperedToken() throws Exception {
+        String token = issueToken();
+
+        this.mockMvc.perform(get("/api/pettypes").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void shouldNotRenewTokenWithToken() throws Exception {
+        String token = issueToken();
+
+        this.mockMvc.perform(post("/api/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldNotIssueTokenForBadCredentials() throws Exception {
+        this.mockMvc.perform(post("/api/token").with(httpBasic("admin", "wrong")))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private String issueToken() throws Exception {
+        String body = this.mockMvc.perform(post("/api/token").with(httpBasic("admin", "admin")))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        TokenRestController.TokenDto token = this.objectMapper.readValue(body, TokenRestController.TokenDto.class);
+        assertThat(token.tokenType()).isEqualTo("Bearer");
+        assertThat(token.expiresIn()).isPositive();
+        return token.accessToken();
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedCredentialsPasswordEncoderTests {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @SuppressWarnings("deprecation")
+    private final PasswordEncoder encoder = new VerifiedCredentialsPasswordEncoder(new PasswordEncoder() {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return NoOpPasswordEncoder.getInstance().encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            verifications.incrementAndGet();
+            return NoOpPasswordEncoder.getInstance().matches(rawPassword, encodedPassword);
+        }
+    }, 100, Duration.ofMinutes(5));
+
+    @Test
+    void shouldVerifyMatchingCredentialsOnce() {
+        assertThat(encoder.matches("admin", "admin")).isTrue();
+        assertThat(encoder.matches("admin", "admin")).isTrue();
+
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void shouldNotCacheRejectedCredentials() {
+        assertThat(encoder.matches("wrong", "admin")).isFalse();
+        assertThat(encoder.matches("wrong", "admin")).isFalse();
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void shouldVerifyOtherPasswordForSameEncodedPassword() {
+        assertThat(encoder.matches("admin", "admin")).isTrue();
+        assertThat(encoder.matches("wrong", "admin")).isFalse();
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    void shouldVerifyAgainAfterPasswordChange() {
+        assertThat(encoder.matches("admin", "admin")).isTrue();
+        assertThat(encoder.matches("admin", "secret")).isFalse();
+
+        assertThat(verifications).hasValue(2);
+    }
+
+}
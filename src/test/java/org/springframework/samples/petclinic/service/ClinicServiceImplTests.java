@@ -0,0 +1,82 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.SpecialtyRepository;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.util.ReplicaRoutingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for the lookup coalescing of {@link ClinicServiceImpl}, with mocked repositories
+ */
+class ClinicServiceImplTests {
+
+    private final OwnerRepository ownerRepository = mock(OwnerRepository.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ClinicServiceImpl clinicService = new ClinicServiceImpl(mock(PetRepository.class),
+        mock(VetRepository.class), ownerRepository, mock(VisitRepository.class), mock(SpecialtyRepository.class),
+        mock(PetTypeRepository.class), mock(PlatformTransactionManager.class), registry, 1, false);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        clinicService.destroy();
+    }
+
+    @Test
+    void shouldNotShareLookupWithSessionStickingToPrimary() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Owner replicaRead = new Owner();
+        Owner primaryRead = new Owner();
+        given(ownerRepository.findById(1))
+            .willAnswer(invocation -> {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return Optional.of(replicaRead);
+            })
+            .willReturn(Optional.of(primaryRead));
+
+        Future<Owner> first = executor.submit(() -> clinicService.findOwnerById(1));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Owner> sticky = executor.submit(() -> {
+            ReplicaRoutingDataSource.beginSession(true, null);
+            try {
+                return clinicService.findOwnerById(1);
+            } finally {
+                ReplicaRoutingDataSource.endSession();
+            }
+        });
+
+        assertThat(sticky.get(5, TimeUnit.SECONDS)).isSameAs(primaryRead);
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(replicaRead);
+        verify(ownerRepository, times(2)).findById(1);
+        assertThat(registry.get("petclinic.lookups").tag("result", "coalesced").counter().count()).isZero();
+    }
+
+}
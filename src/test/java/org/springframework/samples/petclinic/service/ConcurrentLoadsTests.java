@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link ConcurrentLoads}
+ */
+class ConcurrentLoadsTests {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldRunAtMostConcurrencyLoadsAtOnce(boolean virtualThreads) {
+        ConcurrentLoads loads = new ConcurrentLoads("test", 2, virtualThreads);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<CompletableFuture<Integer>> results = IntStream.range(0, 6)
+                .mapToObj(i -> loads.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(50);
+                    running.decrementAndGet();
+                    return i;
+                }))
+                .toList();
+
+            assertThat(results.stream().map(ConcurrentLoads::join)).containsExactly(0, 1, 2, 3, 4, 5);
+            assertThat(maxRunning.get()).isEqualTo(2);
+        } finally {
+            loads.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRethrowLoadFailure() {
+        ConcurrentLoads loads = new ConcurrentLoads("test", 2, false);
+        try {
+            CompletableFuture<String> load = loads.submit(() -> {
+                throw new DataRetrievalFailureException("boom");
+            });
+            assertThatThrownBy(() -> ConcurrentLoads.join(load)).isInstanceOf(DataRetrievalFailureException.class);
+        } finally {
+            loads.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for {@link SingleFlight}
+ */
+class SingleFlightTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final SingleFlight<Integer, String> lookups = new SingleFlight<>("owner", registry);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareInFlightLoadBetweenConcurrentCallers() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> lookups.load(1, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "George";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> second = executor.submit(() -> lookups.load(1, () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        while (coalescedCount() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("George");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("George");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(loadedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLoadAgainOnceCompleted() {
+        assertThat(lookups.load(1, () -> "George")).isEqualTo("George");
+        assertThat(lookups.load(1, () -> "Betty")).isEqualTo("Betty");
+        assertThat(loadedCount()).isEqualTo(2);
+        assertThat(coalescedCount()).isZero();
+    }
+
+    @Test
+    void shouldPropagateLoadFailure() {
+        assertThatThrownBy(() -> lookups.load(1, () -> {
+            throw new DataRetrievalFailureException("boom");
+        })).isInstanceOf(DataRetrievalFailureException.class);
+        assertThat(lookups.load(1, () -> "George")).isEqualTo("George");
+    }
+
+    private double loadedCount() {
+        return registry.get("petclinic.lookups").tag("lookup", "owner").tag("result", "loaded").counter().count();
+    }
+
+    private double coalescedCount() {
+        return registry.get("petclinic.lookups").tag("lookup", "owner").tag("result", "coalesced").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
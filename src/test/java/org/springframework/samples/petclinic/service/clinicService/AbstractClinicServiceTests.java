@@ -19,7 +19,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.samples.petclinic.model.*;
 import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.samples.petclinic.service.OwnerDashboard;
 import org.springframework.samples.petclinic.util.EntityUtils;
+import org.springframework.samples.petclinic.util.SqlStatistics;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +33,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.samples.petclinic.service.clinicService.SqlStatementBudget.assertAtMost;
 
 /**
  * <p> Base class for {@link ClinicService} integration tests. </p> <p> Subclasses should specify Spring context
@@ -42,7 +46,10 @@ import static org.assertj.core.api.Assertions.assertThat;
  * type</em>. <li><strong>Transaction management</strong>, meaning each test method is executed in its own transaction,
  * which is automatically rolled back by default. Thus, even if tests insert or otherwise change database state, there
  * is no need for a teardown or cleanup script. <li> An {@link org.springframework.context.ApplicationContext
- * ApplicationContext} is also inherited and can be used for explicit bean lookup if necessary. </li> </ul>
+ * ApplicationContext} is also inherited and can be used for explicit bean lookup if necessary. </li> </ul> <p>
+ * The <code>DataSource</code> is wrapped by {@link StatementCountingConfig}, so tests can use {@link SqlStatementBudget}
+ * to cap the number of SQL statements a service call issues. The budgets must not depend on the number of rows
+ * returned: a call whose statement count grows with its result is an N+1 query. </p>
  *
  * @author Ken Krebs
  * @author Rod Johnson
@@ -51,6 +58,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  * @author Michael Isvy
  * @author Vitaliy Fedoriv
  */
+@Import(StatementCountingConfig.class)
 abstract class AbstractClinicServiceTests {
 
     @Autowired
@@ -96,7 +104,7 @@ abstract class AbstractClinicServiceTests {
     @Test
     @Transactional
     void shouldUpdateOwner() {
-        Owner owner = this.clinicService.findOwnerById(1);
+        Owner owner = this.clinicService.findOwnerForUpdate(1);
         String oldLastName = owner.getLastName();
         String newLastName = oldLastName + "X";
 
@@ -116,6 +124,18 @@ abstract class AbstractClinicServiceTests {
 
     }
 
+    @Test
+    void shouldReturnNullForUnknownIds() {
+        assertThat(this.clinicService.findOwnerById(9999)).isNull();
+        assertThat(this.clinicService.findOwnerForUpdate(9999)).isNull();
+        assertThat(this.clinicService.findPetById(9999)).isNull();
+        assertThat(this.clinicService.findVisitById(9999)).isNull();
+        assertThat(this.clinicService.findVetById(9999)).isNull();
+        assertThat(this.clinicService.findVetForUpdate(9999)).isNull();
+        assertThat(this.clinicService.findPetTypeById(9999)).isNull();
+        assertThat(this.clinicService.findSpecialtyById(9999)).isNull();
+    }
+
 //    @Test
 //    void shouldFindAllPetTypes() {
 //        Collection<PetType> petTypes = this.clinicService.findPetTypes();
@@ -174,6 +194,49 @@ abstract class AbstractClinicServiceTests {
         assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
     }
 
+    @Test
+    void shouldFindAllVetsWithinStatementBudget() {
+        Collection<Vet> vets = assertAtMost(2, () -> this.clinicService.findAllVets());
+
+        assertThat(vets).hasSize(6);
+        Vet vet = EntityUtils.getById(vets, Vet.class, 3);
+        assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry", "surgery");
+    }
+
+    @Test
+    void shouldFindVetWithinStatementBudget() {
+        Vet vet = assertAtMost(2, () -> this.clinicService.findVetById(3));
+
+        assertThat(vet.getNrOfSpecialties()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReplaceVetSpecialtiesWithinStatementBudget() {
+        Vet vet = this.clinicService.findVetById(3);
+        List<Specialty> original = vet.getSpecialties();
+        try {
+            // dentistry is kept, surgery removed and radiology added
+            vet.setSpecialties(List.of(this.clinicService.findSpecialtyById(1), this.clinicService.findSpecialtyById(3)));
+            assertAtMost(4, () -> {
+                this.clinicService.saveVet(vet);
+                return vet;
+            });
+
+            assertThat(this.clinicService.findVetById(3).getSpecialties())
+                .extracting(Specialty::getName).containsExactly("dentistry", "radiology");
+        } finally {
+            vet.setSpecialties(original);
+            this.clinicService.saveVet(vet);
+        }
+    }
+
+    @Test
+    void shouldFindReferenceDataWithinStatementBudget() {
+        assertThat(assertAtMost(1, () -> this.clinicService.findPetTypes())).hasSize(6);
+        assertThat(assertAtMost(1, () -> this.clinicService.findAllSpecialties())).hasSize(3);
+        assertThat(assertAtMost(1, () -> this.clinicService.findSpecialtyById(1))).isNotNull();
+    }
+
     @Test
     @Transactional
     void shouldAddNewVisitForPet() {
@@ -200,6 +263,225 @@ abstract class AbstractClinicServiceTests {
         assertThat(visitArr[0].getPet().getId()).isEqualTo(7);
     }
 
+    @Test
+    void shouldFindVisitsByDateRangeWithKeysetPaging() {
+        // one query for the page, plus one per distinct owner with JPA as Pet.owner is eager
+        List<Visit> page = assertAtMost(2, () -> this.clinicService.findVisitsByDateRange(
+            LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 4), null, null, 2));
+        assertThat(page).extracting(Visit::getId).containsExactly(2, 3);
+        assertThat(page.get(0).getPet().getName()).isEqualTo("Max");
+
+        Visit last = page.get(page.size() - 1);
+        page = this.clinicService.findVisitsByDateRange(LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 4),
+            last.getDate(), last.getId(), 2);
+        assertThat(page).extracting(Visit::getId).containsExactly(4);
+    }
+
+    @Test
+    void shouldFindVisitsByPetIdAndDateRange() {
+        List<Visit> visits = this.clinicService.findVisitsByPetIdAndDateRange(7, LocalDate.of(2013, 1, 1),
+            LocalDate.of(2013, 1, 31), null, null, 10);
+        assertThat(visits).extracting(Visit::getId).containsExactly(1, 4);
+        assertThat(visits).allSatisfy(visit -> assertThat(visit.getPet().getId()).isEqualTo(7));
+
+        assertThat(this.clinicService.findVisitsByPetIdAndDateRange(7, LocalDate.of(2013, 1, 2), null,
+            null, null, 10)).extracting(Visit::getId).containsExactly(4);
+    }
+
+    @Test
+    @Transactional
+    void shouldArchiveVisitsAndKeepThemInTheHistory() {
+        LocalDate before = LocalDate.of(2013, 1, 3);
+        assertThat(this.clinicService.archiveVisits(before, 1)).isEqualTo(1);
+        assertThat(this.clinicService.archiveVisits(before, 10)).isEqualTo(1);
+        assertThat(this.clinicService.archiveVisits(before, 10)).isZero();
+
+        assertThat(this.clinicService.findVisitsByPetId(7)).extracting(Visit::getId).containsExactly(4);
+        assertThat(this.clinicService.findPetById(8).getVisits()).extracting(Visit::getId).containsExactly(3);
+        List<Visit> history = this.clinicService.findVisitHistoryByPetId(7, null, null, null, null, 10);
+        assertThat(history).extracting(Visit::getId).containsExactly(1, 4);
+        assertThat(history.get(0).getDate()).isEqualTo(LocalDate.of(2013, 1, 1));
+        assertThat(history.get(0).getDescription()).isEqualTo("rabies shot");
+        assertThat(history.get(0).getPet().getId()).isEqualTo(7);
+        assertThat(this.clinicService.findVisitHistoryByPetId(8, null, LocalDate.of(2013, 1, 31),
+            LocalDate.of(2013, 1, 2), 2, 10)).extracting(Visit::getId).containsExactly(3);
+    }
+
+    @Test
+    @Transactional
+    void shouldDeleteArchivedVisitsWithTheirPet() {
+        this.clinicService.archiveVisits(LocalDate.of(2013, 1, 3), 10);
+        this.clinicService.deletePet(this.clinicService.findPetById(7));
+        assertThat(this.clinicService.findVisitHistoryByPetId(7, null, null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFindOwnerWithRecentVisits() {
+        Owner owner = assertAtMost(4, () -> this.clinicService.findOwnerById(6, 1));
+        assertThat(owner.getPet(7).getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(owner.getPet(7).getVisitCount()).isEqualTo(2);
+        assertThat(owner.getPet(8).getVisits()).extracting(Visit::getId).containsExactly(3);
+        assertThat(owner.getPet(8).getVisitCount()).isEqualTo(2);
+
+        owner = this.clinicService.findOwnerById(6, 0);
+        assertThat(owner.getPet(7).getVisits()).isEmpty();
+        assertThat(owner.getPet(7).getVisitCount()).isEqualTo(2);
+
+        owner = this.clinicService.findOwnerById(6, 20);
+        assertThat(owner.getPet(7).getVisits()).extracting(Visit::getId).containsExactly(4, 1);
+        assertThat(this.clinicService.findOwnerById(99, 1)).isNull();
+    }
+
+    @Test
+    void shouldFindOwnerDashboard() {
+        SqlStatistics statistics = SqlStatistics.start();
+        OwnerDashboard dashboard;
+        try {
+            dashboard = this.clinicService.findOwnerDashboard(6, 1, true);
+        } finally {
+            SqlStatistics.stop();
+        }
+        assertThat(dashboard.owner().getLastName()).isEqualTo("Coleman");
+        assertThat(dashboard.owner().getPet(7).getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(dashboard.petTypes()).hasSize(6);
+        assertThat(dashboard.vets()).hasSize(6);
+        assertThat(dashboard.specialties()).hasSize(3);
+        // the statements of the concurrent loads are accounted to the calling thread
+        assertThat(statistics.getStatements()).isPositive();
+        // the owner is read from the database, the pet types, vets and specialties may be cached by earlier tests
+        assertThat(statistics.getRows()).isPositive();
+        assertThat(this.clinicService.findOwnerDashboard(99, 1, true)).isNull();
+
+        dashboard = this.clinicService.findOwnerDashboard(6, 1, false);
+        assertThat(dashboard.petTypes()).hasSize(6);
+        assertThat(dashboard.vets()).isEmpty();
+        assertThat(dashboard.specialties()).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void shouldFindOwnerDashboardThroughTheCurrentTransaction() {
+        Owner owner = this.clinicService.findOwnerById(6);
+        owner.setLastName("Coleman-Black");
+        this.clinicService.saveOwner(owner);
+
+        assertThat(this.clinicService.findOwnerDashboard(6, 1, true).owner().getLastName()).isEqualTo("Coleman-Black");
+    }
+
+    @Test
+    void shouldFindOwnersWithRecentVisits() {
+        Owner owner = this.clinicService.findOwnerByLastName("Coleman", 1).iterator().next();
+        assertThat(owner.getPet(8).getVisits()).extracting(Visit::getId).containsExactly(3);
+
+        owner = EntityUtils.getById(this.clinicService.findAllOwners(1), Owner.class, 6);
+        assertThat(owner.getPet(7).getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(owner.getPet(7).getVisitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFindPetsWithRecentVisits() {
+        Pet pet = this.clinicService.findPetById(7, 1);
+        assertThat(pet.getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(pet.getVisitCount()).isEqualTo(2);
+        assertThat(this.clinicService.findPetById(99, 1)).isNull();
+
+        Collection<Pet> pets = this.clinicService.findAllPets(1);
+        assertThat(pets).hasSize(13);
+        assertThat(EntityUtils.getById(pets, Pet.class, 8).getVisits()).extracting(Visit::getId).containsExactly(3);
+        assertThat(EntityUtils.getById(pets, Pet.class, 8).getVisitCount()).isEqualTo(2);
+        assertThat(EntityUtils.getById(pets, Pet.class, 1).getVisits()).isEmpty();
+        assertThat(EntityUtils.getById(pets, Pet.class, 1).getVisitCount()).isZero();
+    }
+
+    @Test
+    void shouldFindOwnersByIdsInTheirOrder() {
+        List<Owner> owners = assertAtMost(3, () -> this.clinicService.findOwnersByIds(List.of(6, 99, 1, 3)));
+        assertThat(owners).extracting(Owner::getId).containsExactly(6, 1, 3);
+        assertThat(owners.get(0).getPet(7).getVisits()).extracting(Visit::getId).containsExactlyInAnyOrder(1, 4);
+        assertThat(owners.get(0).getPet(7).getType().getName()).isEqualTo("cat");
+
+        owners = assertAtMost(3, () -> this.clinicService.findOwnersByIds(List.of(6), 1));
+        assertThat(owners.get(0).getPet(7).getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(owners.get(0).getPet(7).getVisitCount()).isEqualTo(2);
+        assertThat(this.clinicService.findOwnersByIds(List.of())).isEmpty();
+    }
+
+    @Test
+    void shouldFindPetsByIdsInTheirOrder() {
+        List<Pet> pets = assertAtMost(3, () -> this.clinicService.findPetsByIds(List.of(8, 1, 99, 7)));
+        assertThat(pets).extracting(Pet::getId).containsExactly(8, 1, 7);
+        assertThat(pets.get(0).getOwner().getId()).isEqualTo(6);
+        assertThat(pets.get(1).getType().getName()).isEqualTo("cat");
+        assertThat(pets.get(2).getVisits()).extracting(Visit::getId).containsExactlyInAnyOrder(1, 4);
+
+        pets = assertAtMost(3, () -> this.clinicService.findPetsByIds(List.of(7), 1));
+        assertThat(pets.get(0).getVisits()).extracting(Visit::getId).containsExactly(4);
+        assertThat(pets.get(0).getVisitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFindVetsByIdsInTheirOrder() {
+        List<Vet> vets = assertAtMost(2, () -> this.clinicService.findVetsByIds(List.of(3, 42, 1)));
+        assertThat(vets).extracting(Vet::getId).containsExactly(3, 1);
+        assertThat(vets.get(0).getSpecialties()).extracting(Specialty::getName).containsExactly("dentistry", "surgery");
+        assertThat(vets.get(1).getSpecialties()).isEmpty();
+    }
+
+    @Test
+    void shouldFindOwnersWithOnlySomeProperties() {
+        Owner owner = assertAtMost(1, () -> this.clinicService.findOwnerById(6, Set.of("lastName", "city")));
+        assertThat(owner.getId()).isEqualTo(6);
+        assertThat(owner.getLastName()).isEqualTo("Coleman");
+        assertThat(owner.getCity()).isEqualTo("Monona");
+        assertThat(owner.getFirstName()).isNull();
+        assertThat(owner.getPets()).isEmpty();
+        assertThat(this.clinicService.findOwnerById(99, Set.of("lastName"))).isNull();
+
+        Collection<Owner> owners = assertAtMost(1, () -> this.clinicService.findOwnerByLastName("Davis", Set.of("firstName")));
+        assertThat(owners).extracting(Owner::getFirstName).containsExactlyInAnyOrder("Betty", "Harold");
+        assertThat(assertAtMost(1, () -> this.clinicService.findAllOwners(Set.of("id")))).hasSize(10);
+
+        owners = assertAtMost(1, () -> this.clinicService.findOwnersByIds(List.of(6, 99, 1), Set.of("lastName")));
+        assertThat(owners).extracting(Owner::getLastName).containsExactly("Coleman", "Franklin");
+        assertThat(owners).allSatisfy(found -> assertThat(found.getPets()).isEmpty());
+    }
+
+    @Test
+    void shouldFindPetsWithOnlySomeProperties() {
+        Pet pet = assertAtMost(1, () -> this.clinicService.findPetById(7, Set.of("name", "birthDate", "owner.id", "visitCount")));
+        assertThat(pet.getName()).isEqualTo("Samantha");
+        assertThat(pet.getBirthDate()).isEqualTo(LocalDate.of(2012, 9, 4));
+        assertThat(pet.getOwner().getId()).isEqualTo(6);
+        assertThat(pet.getVisitCount()).isEqualTo(2);
+        assertThat(pet.getType()).isNull();
+        assertThat(pet.getVisits()).isEmpty();
+
+        Collection<Pet> pets = assertAtMost(1, () -> this.clinicService.findAllPets(Set.of("name")));
+        assertThat(pets).hasSize(13);
+        assertThat(EntityUtils.getById(pets, Pet.class, 1).getName()).isEqualTo("Leo");
+
+        pets = assertAtMost(1, () -> this.clinicService.findPetsByIds(List.of(8, 99, 7), Set.of("name", "owner.id")));
+        assertThat(pets).extracting(Pet::getName).containsExactly("Max", "Samantha");
+        assertThat(pets).extracting(found -> found.getOwner().getId()).containsExactly(6, 6);
+        assertThat(pets).allSatisfy(found -> assertThat(found.getVisits()).isEmpty());
+    }
+
+    @Test
+    void shouldFindVetsWithOnlySomeProperties() {
+        Collection<Vet> vets = assertAtMost(1, () -> this.clinicService.findAllVets(Set.of("lastName")));
+        assertThat(vets).hasSize(6);
+        Vet vet = EntityUtils.getById(vets, Vet.class, 3);
+        assertThat(vet.getLastName()).isEqualTo("Douglas");
+        assertThat(vet.getFirstName()).isNull();
+        assertThat(vet.getNrOfSpecialties()).isZero();
+        assertThat(assertAtMost(1, () -> this.clinicService.findVetById(3, Set.of("firstName"))).getFirstName())
+            .isEqualTo("Linda");
+
+        List<Vet> found = assertAtMost(1, () -> this.clinicService.findVetsByIds(List.of(3, 42, 1), Set.of("lastName")));
+        assertThat(found).extracting(Vet::getLastName).containsExactly("Douglas", "Carter");
+        assertThat(found).allSatisfy(foundVet -> assertThat(foundVet.getNrOfSpecialties()).isZero());
+    }
+
     @Test
     void shouldFindAllPets(){
         Collection<Pet> pets = this.clinicService.findAllPets();
@@ -311,7 +593,7 @@ abstract class AbstractClinicServiceTests {
     @Test
     @Transactional
     void shouldUpdateVet(){
-    	Vet vet = this.clinicService.findVetById(1);
+    	Vet vet = this.clinicService.findVetForUpdate(1);
     	String oldLastName = vet.getLastName();
         String newLastName = oldLastName + "X";
         vet.setLastName(newLastName);
@@ -323,7 +605,7 @@ abstract class AbstractClinicServiceTests {
     @Test
     @Transactional
     void shouldDeleteVet(){
-    	Vet vet = this.clinicService.findVetById(1);
+    	Vet vet = this.clinicService.findVetForUpdate(1);
         this.clinicService.deleteVet(vet);
         try {
         	vet = this.clinicService.findVetById(1);
@@ -345,7 +627,7 @@ abstract class AbstractClinicServiceTests {
     @Test
     @Transactional
     void shouldDeleteOwner(){
-    	Owner owner = this.clinicService.findOwnerById(1);
+    	Owner owner = this.clinicService.findOwnerForUpdate(1);
         this.clinicService.deleteOwner(owner);
         try {
         	owner = this.clinicService.findOwnerById(1);
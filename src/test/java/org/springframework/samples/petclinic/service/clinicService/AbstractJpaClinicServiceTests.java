@@ -0,0 +1,37 @@
+package org.springframework.samples.petclinic.service.clinicService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.samples.petclinic.service.clinicService.SqlStatementBudget.assertAtMost;
+
+/**
+ * <p> Base class for the {@link org.springframework.samples.petclinic.service.ClinicService ClinicService}
+ * integration tests of the profiles backed by Hibernate, adding the tests of its second-level cache. </p>
+ *
+ * @see AbstractClinicServiceTests AbstractClinicServiceTests for more details.
+ */
+abstract class AbstractJpaClinicServiceTests extends AbstractClinicServiceTests {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void shouldServeReferenceDataFromSecondLevelCache() {
+        this.clinicService.findPetTypes();
+        this.clinicService.findVetById(3);
+        this.clinicService.findSpecialtyById(1);
+        this.clinicService.findAllVets();
+        this.clinicService.findAllSpecialties();
+
+        assertThat(assertAtMost(0, () -> this.clinicService.findPetTypes())).hasSize(6);
+        assertThat(assertAtMost(0, () -> this.clinicService.findVetById(3)).getNrOfSpecialties()).isEqualTo(2);
+        assertThat(assertAtMost(0, () -> this.clinicService.findSpecialtyById(1))).isNotNull();
+        assertThat(assertAtMost(0, () -> this.clinicService.findAllVets())).hasSize(6);
+        assertThat(assertAtMost(0, () -> this.clinicService.findAllSpecialties())).hasSize(3);
+        assertThat(this.meterRegistry.find("hibernate.second.level.cache.requests").tag("result", "hit").functionCounters())
+            .isNotEmpty();
+    }
+}
@@ -16,7 +16,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
 @ActiveProfiles({"jpa", "hsqldb"})
-class ClinicServiceJpaTests extends AbstractClinicServiceTests {
+class ClinicServiceJpaTests extends AbstractJpaClinicServiceTests {
 
     @Autowired
     EntityManager entityManager;
@@ -14,7 +14,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
 @ActiveProfiles({"spring-data-jpa", "hsqldb"})
-class ClinicServiceSpringDataJpaTests extends AbstractClinicServiceTests {
+class ClinicServiceSpringDataJpaTests extends AbstractJpaClinicServiceTests {
 
     @Autowired
     EntityManager entityManager;
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service.clinicService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Puts a budget on the number of SQL statements a service call may issue, so that N+1 query regressions fail
+ * the build instead of showing up in production.
+ * <p>
+ * Statements are recorded per thread by the {@link #LISTENER}, which {@link StatementCountingConfig} attaches to the
+ * application <code>DataSource</code>. A batch counts as one statement since it is sent in one round trip.
+ *
+ * @see StatementCountingConfig
+ */
+public final class SqlStatementBudget {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    static final QueryExecutionListener LISTENER = new QueryExecutionListener() {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<String> statements = RECORDED.get();
+            if (statements != null) {
+                statements.add(queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+            }
+        }
+    };
+
+    private SqlStatementBudget() {
+    }
+
+    /**
+     * Runs the given call and fails if it issued more than <code>budget</code> SQL statements.
+     *
+     * @param budget the maximum number of statements
+     * @param call   the service call to measure
+     * @return the result of the call
+     */
+    public static <T> T assertAtMost(int budget, Supplier<T> call) {
+        List<String> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            T result = call.get();
+            assertThat(statements)
+                .as("SQL statements issued (budget is %d)", budget)
+                .hasSizeLessThanOrEqualTo(budget);
+            return result;
+        } finally {
+            RECORDED.remove();
+        }
+    }
+
+}
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.samples.petclinic.model.User;
 import org.springframework.samples.petclinic.service.UserService;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public abstract class AbstractUserServiceTests {
@@ -15,6 +17,9 @@ public abstract class AbstractUserServiceTests {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     public void init() {
         MockitoAnnotations.openMocks(this);
@@ -32,4 +37,26 @@ public abstract class AbstractUserServiceTests {
         assertThat(user.getRoles().parallelStream().allMatch(role -> role.getName().startsWith("ROLE_")), is(true));
         assertThat(user.getRoles().parallelStream().allMatch(role -> role.getUser() != null), is(true));
     }
+
+    @Test
+    public void shouldReplaceUserRoles() throws Exception {
+        User user = new User();
+        user.setUsername("roster");
+        user.setPassword("password");
+        user.setEnabled(true);
+        user.addRole("OWNER_ADMIN");
+        user.addRole("VET_ADMIN");
+        userService.saveUser(user);
+
+        User updated = new User();
+        updated.setUsername("roster");
+        updated.setPassword("password");
+        updated.setEnabled(true);
+        updated.addRole("VET_ADMIN");
+        updated.addRole("ADMIN");
+        userService.saveUser(updated);
+
+        assertThat(jdbcTemplate.queryForList("SELECT role FROM roles WHERE username = 'roster'", String.class),
+            containsInAnyOrder("ROLE_VET_ADMIN", "ROLE_ADMIN"));
+    }
 }
@@ -1,10 +1,39 @@
 package org.springframework.samples.petclinic.service.userService;
 
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.samples.petclinic.model.User;
+import org.springframework.samples.petclinic.service.UserService;
+import org.springframework.samples.petclinic.service.clinicService.StatementCountingConfig;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.springframework.samples.petclinic.service.clinicService.SqlStatementBudget.assertAtMost;
+
 @SpringBootTest
 @ActiveProfiles({"jdbc", "hsqldb"})
+@Import(StatementCountingConfig.class)
 class UserServiceJdbcTests extends AbstractUserServiceTests {
 
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void shouldSaveUserWithoutReadingItsRoles() {
+        for (String username : new String[]{"budget", "budget"}) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("password");
+            user.setEnabled(true);
+            user.addRole("OWNER_ADMIN");
+            user.addRole("VET_ADMIN");
+            // upsert, delete of the revoked roles and batched insert of the granted ones, new user or not
+            assertAtMost(3, () -> {
+                this.userService.saveUser(user);
+                return user;
+            });
+        }
+    }
+
 }
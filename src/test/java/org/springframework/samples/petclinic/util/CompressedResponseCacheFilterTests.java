@@ -0,0 +1,146 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link CompressedResponseCacheFilter}
+ */
+class CompressedResponseCacheFilterTests {
+
+    private static final String BODY = "[" + "{\"id\":1,\"name\":\"cat\"},".repeat(100) + "{\"id\":2,\"name\":\"dog\"}]";
+
+    private final CompressedResponseCacheFilter filter = new CompressedResponseCacheFilter(
+        List.of("/api/pettypes"), 1024, Caffeine.newBuilder().build());
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final FilterChain chain = (request, response) -> {
+        this.renders.incrementAndGet();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    void shouldCompressOnceAndServeFromCache() throws Exception {
+        MockHttpServletResponse first = get("/api/pettypes", "gzip, deflate");
+        MockHttpServletResponse second = get("/api/pettypes", "gzip, deflate");
+
+        assertThat(this.renders).hasValue(1);
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+            assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+            assertThat(response.getContentLength()).isLessThan(BODY.length() / 4);
+            assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void shouldClearCacheOnWrite() throws Exception {
+        get("/api/pettypes", "gzip");
+        MockHttpServletRequest post = request("POST", "/api/pettypes", null);
+        this.filter.doFilter(post, new MockHttpServletResponse(),
+            (FilterChain) (request, response) -> ((HttpServletResponse) response).setStatus(201));
+        get("/api/pettypes", "gzip");
+
+        assertThat(this.renders).hasValue(2);
+    }
+
+    @Test
+    void shouldNotCacheResponseRenderedBeforeConcurrentWrite() throws Exception {
+        FilterChain renderedBeforeWrite = (request, response) -> {
+            this.chain.doFilter(request, response);
+            // a write commits and clears the cache while the response is being compressed
+            this.filter.doFilter(request("PUT", "/api/pettypes/1", null), new MockHttpServletResponse(),
+                (FilterChain) (req, res) -> ((HttpServletResponse) res).setStatus(204));
+        };
+        this.filter.doFilter(request("GET", "/api/pettypes", "gzip"), new MockHttpServletResponse(),
+            renderedBeforeWrite);
+        get("/api/pettypes", "gzip");
+
+        assertThat(this.renders).hasValue(2);
+    }
+
+    @Test
+    void shouldKeepCacheOnFailedWrite() throws Exception {
+        get("/api/pettypes", "gzip");
+        this.filter.doFilter(request("PUT", "/api/pettypes/1", null), new MockHttpServletResponse(),
+            (FilterChain) (request, response) -> ((HttpServletResponse) response).setStatus(400));
+        get("/api/pettypes", "gzip");
+
+        assertThat(this.renders).hasValue(1);
+    }
+
+    @Test
+    void shouldNotCompressForClientsWithoutGzip() throws Exception {
+        for (String acceptEncoding : new String[] {null, "br", "gzip;q=0"}) {
+            MockHttpServletResponse response = get("/api/pettypes", acceptEncoding);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(response.getContentAsString()).isEqualTo(BODY);
+        }
+        assertThat(this.renders).hasValue(3);
+    }
+
+    @Test
+    void shouldNotCacheOtherPaths() throws Exception {
+        MockHttpServletResponse response = get("/api/owners", "gzip");
+        get("/api/owners", "gzip");
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(this.renders).hasValue(2);
+    }
+
+    @Test
+    void shouldNotCacheSmallResponses() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain small = (request, res) -> {
+            this.renders.incrementAndGet();
+            res.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+        };
+        this.filter.doFilter(request("GET", "/api/pettypes", "gzip"), response, small);
+        this.filter.doFilter(request("GET", "/api/pettypes", "gzip"), new MockHttpServletResponse(), small);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+        assertThat(this.renders).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.filter.doFilter(request("GET", path, acceptEncoding), response, this.chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/petclinic" + path);
+        request.setContextPath("/petclinic");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
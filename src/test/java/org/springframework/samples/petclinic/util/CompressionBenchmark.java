@@ -0,0 +1,136 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.PetTypeDto;
+import org.springframework.samples.petclinic.rest.dto.SpecialtyDto;
+import org.springframework.samples.petclinic.rest.dto.VetDto;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
+
+/**
+ * Weighs the CPU cost of gzip-compressing the <code>/api/owners</code> and <code>/api/vets</code> responses, at the
+ * levels of fast, default (the server's) and best compression, against the cost of serializing them. The payloads
+ * follow the sample data: owners with two pets of two visits each, vets with up to two specialties. The bytes saved
+ * per level are printed during the setup.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CompressionBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Param({"owners", "vets"})
+    private String resource;
+
+    @Param({"10", "1000"})
+    private int entries;
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    private List<?> payload;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.payload = "owners".equals(this.resource) ? owners(this.entries) : vets(this.entries);
+        this.json = OBJECT_MAPPER.writeValueAsBytes(this.payload);
+        int compressed = gzip(this.json, this.level).length;
+        System.out.printf(Locale.ROOT, "%n/api/%s with %d entries: %d bytes, %d gzipped at level %d (%.1f%% saved)%n",
+            this.resource, this.entries, this.json.length, compressed, this.level,
+            100.0 * (this.json.length - compressed) / this.json.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return OBJECT_MAPPER.writeValueAsBytes(this.payload);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return gzip(this.json, this.level);
+    }
+
+    private static byte[] gzip(byte[] body, int level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes) {
+            {
+                this.def.setLevel(level);
+            }
+        }) {
+            gzip.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<OwnerDto> owners(int count) {
+        String[] types = {"cat", "dog", "lizard", "snake", "bird", "hamster"};
+        List<OwnerDto> owners = new ArrayList<>(count);
+        int petId = 1;
+        int visitId = 1;
+        for (int id = 1; id <= count; id++) {
+            OwnerDto owner = new OwnerDto().id(id).firstName("George" + id).lastName("Franklin")
+                .address(id + " W. Liberty St.").city("Madison").telephone(String.format("608555%04d", id % 10000));
+            for (int p = 0; p < 2; p++, petId++) {
+                PetDto pet = new PetDto().id(petId).ownerId(id).name("Leo" + petId)
+                    .birthDate(LocalDate.of(2010, 1, 1).plusDays(petId % 3650))
+                    .type(new PetTypeDto().id(petId % types.length + 1).name(types[petId % types.length]));
+                for (int v = 0; v < 2; v++, visitId++) {
+                    pet.addVisitsItem(new VisitDto().id(visitId).petId(petId)
+                        .date(LocalDate.of(2020, 1, 1).plusDays(visitId % 1000))
+                        .description(v == 0 ? "rabies shot" : "neutered"));
+                }
+                owner.addPetsItem(pet);
+            }
+            owners.add(owner);
+        }
+        return owners;
+    }
+
+    private static List<VetDto> vets(int count) {
+        String[] specialties = {"radiology", "surgery", "dentistry"};
+        List<VetDto> vets = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            VetDto vet = new VetDto().id(id).firstName("James" + id).lastName("Carter");
+            for (int s = 0; s < id % 3; s++) {
+                int specialty = (id + s) % specialties.length;
+                vet.addSpecialtiesItem(new SpecialtyDto().id(specialty + 1).name(specialties[specialty]));
+            }
+            vets.add(vet);
+        }
+        return vets;
+    }
+
+}
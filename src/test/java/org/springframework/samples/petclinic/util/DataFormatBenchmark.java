@@ -0,0 +1,87 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+
+/**
+ * Weighs the cost of encoding and decoding a <code>/api/owners</code> response as JSON, CBOR and Smile, the formats
+ * clients can ask for in their <code>Accept</code> header. The payload follows the sample data, see
+ * {@link CompressionBenchmark}. The size of the payload in each format is printed during the setup.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=DataFormatBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataFormatBenchmark {
+
+    private static final TypeReference<List<OwnerDto>> OWNERS = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10", "1000"})
+    private int entries;
+
+    private ObjectMapper objectMapper;
+
+    private List<OwnerDto> payload;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (this.format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        this.objectMapper = new ObjectMapper(factory)
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.payload = CompressionBenchmark.owners(this.entries);
+        this.encoded = this.objectMapper.writeValueAsBytes(this.payload);
+        int json = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .writeValueAsBytes(this.payload).length;
+        System.out.printf(Locale.ROOT, "%n/api/owners with %d entries: %d bytes as %s (%.1f%% of JSON)%n",
+            this.entries, this.encoded.length, this.format, 100.0 * this.encoded.length / json);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return this.objectMapper.writeValueAsBytes(this.payload);
+    }
+
+    @Benchmark
+    public List<OwnerDto> decode() throws IOException {
+        return this.objectMapper.readValue(this.encoded, OWNERS);
+    }
+
+}
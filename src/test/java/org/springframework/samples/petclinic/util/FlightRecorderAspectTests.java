@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.service.ClinicService;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link FlightRecorderAspect}
+ */
+@SpringBootTest(properties = "petclinic.jfr.enable=true")
+@ActiveProfiles({"jdbc", "hsqldb"})
+class FlightRecorderAspectTests {
+
+    @Autowired
+    private ClinicService clinicService;
+
+    @Test
+    void shouldRecordServiceAndRepositoryCalls(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("petclinic.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ClinicOperationEvent.NAME).withoutThreshold();
+            recording.start();
+            this.clinicService.findPetTypes();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events).extracting(event -> event.getString("method"))
+            .contains("ClinicServiceImpl.findPetTypes", "JdbcPetRepositoryImpl.findPetTypes");
+        RecordedEvent serviceCall = events.stream()
+            .filter(event -> "ClinicServiceImpl.findPetTypes".equals(event.getString("method")))
+            .findFirst().orElseThrow();
+        assertThat(serviceCall.getString("entityType")).isEqualTo("PetType");
+        assertThat(serviceCall.getInt("rows")).isEqualTo(6);
+    }
+
+    @Test
+    void shouldRecordOnlyEntityIdArguments(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("petclinic.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ClinicOperationEvent.NAME).withoutThreshold();
+            recording.start();
+            this.clinicService.findPetById(7, 2);
+            this.clinicService.findAllOwners(3);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(event(events, "ClinicServiceImpl.findPetById").getInt("entityId")).isEqualTo(7);
+        // the visit limit is not an owner id
+        assertThat(event(events, "ClinicServiceImpl.findAllOwners").getInt("entityId")).isZero();
+    }
+
+    private static RecordedEvent event(List<RecordedEvent> events, String method) {
+        return events.stream().filter(event -> method.equals(event.getString("method"))).findFirst().orElseThrow();
+    }
+
+    @Test
+    void shouldParseBundledSettings() throws Exception {
+        try (InputStream settings = getClass().getResourceAsStream("/jfr/petclinic.jfc")) {
+            Configuration configuration = Configuration.create(new InputStreamReader(settings, StandardCharsets.UTF_8));
+            assertThat(configuration.getSettings())
+                .containsEntry(ClinicOperationEvent.NAME + "#enabled", "true")
+                .containsEntry(ClinicOperationEvent.NAME + "#threshold", "5 ms");
+        }
+    }
+}
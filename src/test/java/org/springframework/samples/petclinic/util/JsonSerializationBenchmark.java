@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.samples.petclinic.rest.dto.OwnerDto;
+import org.springframework.samples.petclinic.rest.dto.PetDto;
+import org.springframework.samples.petclinic.rest.dto.VisitDto;
+
+/**
+ * Compares the object mapper of the application, with the Blackbird module and
+ * <code>spring.jackson.serialization.flush-after-write-value=false</code>, with the default one Spring Boot builds,
+ * on the <code>/api/owners</code>, <code>/api/pets</code> and <code>/api/visits</code> payloads of
+ * {@link CompressionBenchmark}. Both write and read through an <code>ObjectWriter</code> and
+ * <code>ObjectReader</code> built once for the list type, as the message converters reuse the serializers of their
+ * mapper.
+ * <p>
+ * Run with <code>mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JsonSerializationBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"default", "tuned"})
+    private String mapper;
+
+    @Param({"owners", "pets", "visits"})
+    private String resource;
+
+    @Param({"10", "1000"})
+    private int entries;
+
+    private List<?> payload;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("tuned".equals(this.mapper)) {
+            builder.modulesToInstall(new BlackbirdModule())
+                .featuresToDisable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+        ObjectMapper objectMapper = builder.build();
+        List<OwnerDto> owners = CompressionBenchmark.owners(this.entries);
+        List<PetDto> pets = owners.stream().flatMap(owner -> owner.getPets().stream()).toList();
+        Class<?> type = switch (this.resource) {
+            case "pets" -> PetDto.class;
+            case "visits" -> VisitDto.class;
+            default -> OwnerDto.class;
+        };
+        this.payload = switch (this.resource) {
+            case "pets" -> pets;
+            case "visits" -> pets.stream().flatMap(pet -> pet.getVisits().stream()).toList();
+            default -> owners;
+        };
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+        this.writer = objectMapper.writerFor(listType);
+        this.reader = objectMapper.readerFor(listType);
+        this.json = this.writer.writeValueAsBytes(this.payload);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return this.writer.writeValueAsBytes(this.payload);
+    }
+
+    @Benchmark
+    public List<?> deserialize() throws IOException {
+        return this.reader.readValue(this.json);
+    }
+
+}
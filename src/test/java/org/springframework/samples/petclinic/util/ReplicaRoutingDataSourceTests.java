@@ -0,0 +1,162 @@
+package org.springframework.samples.petclinic.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link ReplicaRoutingDataSource} and {@link ReplicaRoutingFilter}, with two HSQLDB instances
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static final String LAG_QUERY = "SELECT lag FROM replica_lag";
+
+    private final EmbeddedDatabase primary = database("primary");
+
+    private final EmbeddedDatabase replica = database("replica");
+
+    private final ReplicaRoutingDataSource routing =
+        new ReplicaRoutingDataSource(this.primary, this.replica, LAG_QUERY, Duration.ofSeconds(5));
+
+    private final DataSource dataSource = this.routing.lazy();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(this.dataSource);
+
+    @AfterEach
+    void shutdown() {
+        this.primary.shutdown();
+        this.replica.shutdown();
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        assertThat(readOnly()).isEqualTo("replica");
+        assertThat(readWrite()).isEqualTo("primary");
+        assertThat(this.jdbcTemplate.queryForObject("SELECT name FROM instance", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhileReplicaLags() {
+        new JdbcTemplate(this.replica).update("UPDATE replica_lag SET lag = 10");
+        this.routing.checkReplica();
+
+        assertThat(this.routing.isReplicaAvailable()).isFalse();
+        assertThat(readOnly()).isEqualTo("primary");
+
+        new JdbcTemplate(this.replica).update("UPDATE replica_lag SET lag = 0.5");
+        this.routing.checkReplica();
+
+        assertThat(this.routing.isReplicaAvailable()).isTrue();
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaIsDown() {
+        this.replica.shutdown();
+        this.routing.checkReplica();
+
+        assertThat(readOnly()).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldReadOwnWritesWithinSession() {
+        AtomicInteger writes = new AtomicInteger();
+        ReplicaRoutingDataSource.beginSession(false, writes::incrementAndGet);
+        try {
+            assertThat(readOnly()).isEqualTo("replica");
+            assertThat(ReplicaRoutingDataSource.isStickToPrimary()).isFalse();
+            readWrite();
+            readWrite();
+            assertThat(ReplicaRoutingDataSource.isStickToPrimary()).isTrue();
+            assertThat(readOnly()).isEqualTo("primary");
+        } finally {
+            ReplicaRoutingDataSource.endSession();
+        }
+        assertThat(writes).hasValue(1);
+        assertThat(ReplicaRoutingDataSource.isStickToPrimary()).isFalse();
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void shouldNotTakeStatementsOutsideTransactionsAsWrites() {
+        ReplicaRoutingDataSource.beginSession(false, null);
+        try {
+            this.jdbcTemplate.queryForObject("SELECT name FROM instance", String.class);
+            assertThat(readOnly()).isEqualTo("replica");
+        } finally {
+            ReplicaRoutingDataSource.endSession();
+        }
+    }
+
+    @Test
+    void shouldSetCookieOnWriteAndStickToPrimaryWithIt() throws Exception {
+        ReplicaRoutingFilter filter = new ReplicaRoutingFilter(Duration.ofSeconds(5));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), response, (FilterChain) (req, res) -> readWrite());
+
+        Cookie cookie = response.getCookie(ReplicaRoutingFilter.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+        assertThat(cookie.getMaxAge()).isEqualTo(5);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        String[] read = new String[1];
+        filter.doFilter(request, new MockHttpServletResponse(), (FilterChain) (req, res) -> read[0] = readOnly());
+        assertThat(read[0]).isEqualTo("primary");
+    }
+
+    @Test
+    void shouldNotSetCookieOnReads() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ReplicaRoutingFilter(Duration.ofSeconds(5))
+            .doFilter(new MockHttpServletRequest(), response, (FilterChain) (req, res) -> readOnly());
+
+        assertThat(response.getCookie(ReplicaRoutingFilter.COOKIE_NAME)).isNull();
+    }
+
+    private String readOnly() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status ->
+            this.jdbcTemplate.queryForObject("SELECT name FROM instance", String.class));
+    }
+
+    private String readWrite() {
+        return new TransactionTemplate(this.transactionManager).execute(status -> {
+            this.jdbcTemplate.update("UPDATE instance SET writes = writes + 1");
+            return this.jdbcTemplate.queryForObject("SELECT name FROM instance", String.class);
+        });
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.HSQL)
+            .generateUniqueName(true)
+            .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE instance (name VARCHAR(10), writes INTEGER)");
+        jdbcTemplate.update("INSERT INTO instance VALUES (?, 0)", name);
+        jdbcTemplate.execute("CREATE TABLE replica_lag (lag DECIMAL(10, 3))");
+        jdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+        return database;
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.util;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link SqlAccountingFilter}
+ */
+class SqlAccountingFilterTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+        .setType(EmbeddedDatabaseType.HSQL)
+        .generateUniqueName(true)
+        .build();
+
+    private final DataSource dataSource = SqlStatistics.instrument("test", this.database);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void shutdown() {
+        this.database.shutdown();
+    }
+
+    @Test
+    void shouldRecordStatementsAndRowsPerHandler() throws Exception {
+        new SqlAccountingFilter(this.registry, false).doFilter(ownersRequest(), new MockHttpServletResponse(), queryTwice());
+
+        assertThat(this.registry.get("petclinic.http.sql.statements").tag("handler", "OwnerController.listOwners")
+            .summary().totalAmount()).isEqualTo(2);
+        assertThat(this.registry.get("petclinic.http.sql.rows").tag("handler", "OwnerController.listOwners")
+            .summary().totalAmount()).isEqualTo(2);
+        assertThat(this.registry.get("petclinic.http.sql.time").tag("handler", "OwnerController.listOwners")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAddServerTimingHeaderWhenEnabled() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new SqlAccountingFilter(this.registry, true).doFilter(ownersRequest(), response, queryTwice());
+
+        assertThat(response.getHeader(SqlAccountingFilter.SERVER_TIMING_HEADER))
+            .startsWith("db;dur=")
+            .endsWith(";desc=\"2 statements, 2 rows\"");
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    void shouldNotAddServerTimingHeaderByDefault() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new SqlAccountingFilter(this.registry, false).doFilter(ownersRequest(), response, queryTwice());
+
+        assertThat(response.getHeader(SqlAccountingFilter.SERVER_TIMING_HEADER)).isNull();
+    }
+
+    @Test
+    void shouldNotRecordOutsideOfRequests() {
+        new JdbcTemplate(this.dataSource).queryForObject("VALUES 1", Integer.class);
+
+        assertThat(this.registry.getMeters()).isEmpty();
+    }
+
+    private FilterChain queryTwice() {
+        return (request, response) -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+            jdbcTemplate.queryForObject("VALUES 1", Integer.class);
+            jdbcTemplate.queryForObject("VALUES 2", Integer.class);
+            response.getWriter().write("[]");
+            response.flushBuffer();
+        };
+    }
+
+    private MockHttpServletRequest ownersRequest() throws NoSuchMethodException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/owners");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+            new HandlerMethod(new OwnerController(), OwnerController.class.getMethod("listOwners")));
+        return request;
+    }
+
+    static class OwnerController {
+
+        public String listOwners() {
+            return "[]";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.springframework.samples.petclinic.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.service.ClinicService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VisitArchiverTests {
+
+    private final ClinicService clinicService = mock(ClinicService.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-06-15T03:30:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void shouldArchiveInBatchesUntilAShortOne() {
+        LocalDate before = LocalDate.of(2023, 6, 15);
+        given(this.clinicService.archiveVisits(before, 100)).willReturn(100, 100, 42);
+        VisitArchiver archiver = new VisitArchiver(this.clinicService, Period.ofYears(2), 100, this.clock,
+            this.meterRegistry);
+
+        assertThat(archiver.archive()).isEqualTo(242);
+        verify(this.clinicService, times(3)).archiveVisits(before, 100);
+        assertThat(this.meterRegistry.get("petclinic.visits.archived").counter().count()).isEqualTo(242);
+    }
+
+    @Test
+    void shouldStopWhenNothingIsLeftToArchive() {
+        given(this.clinicService.archiveVisits(LocalDate.of(2025, 3, 15), 10)).willReturn(0);
+        VisitArchiver archiver = new VisitArchiver(this.clinicService, Period.ofMonths(3), 10, this.clock,
+            this.meterRegistry);
+
+        assertThat(archiver.archive()).isZero();
+        verify(this.clinicService).archiveVisits(LocalDate.of(2025, 3, 15), 10);
+    }
+
+    @Test
+    void shouldRejectAnEmptyBatch() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+            new VisitArchiver(this.clinicService, Period.ofYears(2), 0, this.clock, this.meterRegistry));
+    }
+
+}